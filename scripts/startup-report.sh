@@ -0,0 +1,59 @@
+#!/usr/bin/env sh
+# Mede o tempo de inicialização e a memória (RSS) de cada variante da imagem Docker.
+#
+# Uso: sh scripts/startup-report.sh [variantes...]
+# Variantes: jar, jar-aot, cds, cds-aot, native (padrão: todas menos native)
+#
+# Cada variante sobe contra um DynamoDB Local numa rede Docker própria. O tempo é o "Started ... in X seconds"
+# do Spring Boot; a memória é a do container depois do aquecimento, lida com docker stats.
+set -eu
+
+VARIANTS=${*:-"jar jar-aot cds cds-aot"}
+NETWORK=userservice-startup
+DYNAMODB=userservice-startup-dynamodb
+TIMEOUT_SECONDS=180
+
+cleanup() {
+    docker rm -f userservice-startup-app "$DYNAMODB" >/dev/null 2>&1 || true
+    docker network rm "$NETWORK" >/dev/null 2>&1 || true
+}
+trap cleanup EXIT
+
+docker network create "$NETWORK" >/dev/null
+docker run -d --rm --name "$DYNAMODB" --network "$NETWORK" amazon/dynamodb-local:2.5.2 -jar DynamoDBLocal.jar -inMemory >/dev/null
+
+printf '%-10s %-14s %-12s\n' "variante" "inicialização" "memória"
+for variant in $VARIANTS; do
+    case "$variant" in
+        jar) target=jar; aot=false ;;
+        jar-aot) target=jar; aot=true ;;
+        cds) target=cds; aot=false ;;
+        cds-aot) target=cds; aot=true ;;
+        native) target=native; aot=false ;;
+        *) echo "Variante desconhecida: $variant" >&2; exit 1 ;;
+    esac
+
+    docker build -q --target "$target" --build-arg AOT="$aot" -t "userservice:$variant" . >/dev/null
+    docker run -d --name userservice-startup-app --network "$NETWORK" \
+        -e AWS_DYNAMODB_ENDPOINT="http://$DYNAMODB:8000" \
+        -e AWS_ACCESSKEYID=local -e AWS_SECRETKEY=local \
+        -e JWT_SECRET=startup-report \
+        "userservice:$variant" >/dev/null
+
+    elapsed=0
+    until docker logs userservice-startup-app 2>&1 | grep -q "Aquecimento concluído"; do
+        if [ "$elapsed" -ge "$TIMEOUT_SECONDS" ]; then
+            echo "$variant não terminou de subir em ${TIMEOUT_SECONDS}s" >&2
+            docker logs userservice-startup-app >&2
+            exit 1
+        fi
+        sleep 1
+        elapsed=$((elapsed + 1))
+    done
+
+    started=$(docker logs userservice-startup-app 2>&1 | sed -n 's/.*Started UserserviceApplication in \([0-9.]*\) seconds.*/\1/p')
+    memory=$(docker stats --no-stream --format '{{.MemUsage}}' userservice-startup-app | cut -d/ -f1)
+    printf '%-10s %-14s %-12s\n' "$variant" "${started}s" "$memory"
+
+    docker rm -f userservice-startup-app >/dev/null
+done
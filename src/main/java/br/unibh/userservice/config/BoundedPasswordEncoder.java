@@ -0,0 +1,188 @@
+package br.unibh.userservice.config;
+
+import br.unibh.userservice.exception.ServiceExceptions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * {@link PasswordEncoder} BCrypt que executa o hash em um pool dedicado e limitado, fora das threads do Tomcat.
+ * <p>
+ * Quando o pool e a fila estão cheios, a tentativa é recusada na hora com
+ * {@link ServiceExceptions.ServiceOverloadedException} (503), em vez de ocupar todas as threads de requisição
+ * com hashing e travar os endpoints baratos.
+ * <p>
+ * As threads do pool são de plataforma mesmo com {@code spring.threads.virtual.enabled=true}: o BCrypt é só CPU
+ * e, em threads virtuais, não teria limite de paralelismo. A thread virtual da requisição apenas estaciona
+ * no {@link Future#get} enquanto espera, sem prender o carrier.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private static final int CALIBRATION_STRENGTH = 10;
+    private static final int MAX_STRENGTH = 16;
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, Duration timeout) {
+        this.strength = strength;
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.timeout = timeout;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("Hash de senhas com BCrypt custo {} em {} threads (fila: {})", strength, threads, queueCapacity);
+    }
+
+    /**
+     * Escolhe o maior custo BCrypt cujo tempo estimado de hash, neste hardware, não passa de {@code target}, e nunca
+     * menos que {@code minStrength}. Cada incremento de custo dobra o tempo, então basta medir um custo de referência.
+     */
+    public static int calibrateStrength(Duration target, int minStrength) {
+        BCryptPasswordEncoder reference = new BCryptPasswordEncoder(CALIBRATION_STRENGTH);
+        reference.encode("aquecimento");
+
+        long start = System.nanoTime();
+        reference.encode("calibracao");
+        double referenceMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000.0);
+
+        int strength = CALIBRATION_STRENGTH;
+        while (strength < MAX_STRENGTH && referenceMillis * Math.pow(2, strength + 1 - CALIBRATION_STRENGTH) <= target.toMillis()) {
+            strength++;
+        }
+        while (strength > minStrength && referenceMillis * Math.pow(2, strength - CALIBRATION_STRENGTH) > target.toMillis()) {
+            strength--;
+        }
+        // O mínimo vale mesmo acima do custo de referência, em hardware lento demais para o alvo
+        strength = Math.max(minStrength, strength);
+        log.info("Calibração BCrypt: custo {} leva {} ms; custo escolhido {} para alvo de {} ms",
+                CALIBRATION_STRENGTH, Math.round(referenceMillis), strength, target.toMillis());
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return await(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Variante não bloqueante de {@link #encode}: o futuro é completado na thread do pool de hashing.
+     */
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+
+    /**
+     * Variante não bloqueante de {@link #matches}.
+     */
+    public CompletableFuture<Boolean> matchesAsync(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hashes gravados com um custo menor que o atual são refeitos no próximo login bem-sucedido. Um custo maior
+     * é mantido: com a calibração feita em cada réplica, réplicas em hardware diferente escolhem custos diferentes
+     * e, senão, regravariam o hash da mesma conta a cada login, uma desfazendo a outra.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int stored = strengthOf(encodedPassword);
+        return stored > 0 && stored < strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> T await(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceExceptions.ServiceOverloadedException("Serviço de autenticação sobrecarregado. Tente novamente em instantes.");
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceExceptions.ServiceOverloadedException("Tempo esgotado aguardando o hash da senha.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ServiceExceptions.ServiceOverloadedException("Hash da senha interrompido.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> submitted;
+        try {
+            submitted = CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new ServiceExceptions.ServiceOverloadedException("Serviço de autenticação sobrecarregado. Tente novamente em instantes."));
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        submitted.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((value, failure) -> {
+            if (failure == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+            result.completeExceptionally(cause instanceof TimeoutException
+                    ? new ServiceExceptions.ServiceOverloadedException("Tempo esgotado aguardando o hash da senha.")
+                    : cause);
+        });
+        return result;
+    }
+
+    /** Extrai o custo de um hash no formato {@code $2a$10$...}; devolve -1 se não for BCrypt. */
+    static int strengthOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return -1;
+        }
+        int costStart = encodedPassword.indexOf('$', 1) + 1;
+        if (costStart <= 0 || costStart + 2 > encodedPassword.length()) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(costStart, costStart + 2));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package br.unibh.userservice.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Descobre o IP do cliente para os limites por IP do {@link LoginThrottle}.
+ * <p>
+ * Atrás do load balancer, {@code getRemoteAddr()} é sempre o IP do balanceador, e todos os clientes dividiriam o
+ * mesmo balde. O {@code X-Forwarded-For} só é lido quando a conexão vem de um proxy confiável
+ * ({@code security.clientIp.trustedProxies}, lista de CIDRs), e é percorrido da direita para a esquerda: cada
+ * proxy acrescenta ao fim o endereço que se conectou a ele, então o primeiro endereço não confiável a partir da
+ * direita é o do cliente. O que o cliente escreve no próprio cabeçalho fica à esquerda desse endereço e é ignorado.
+ * <p>
+ * Por isso {@code server.forward-headers-strategy} fica {@code none}: com {@code framework}, o
+ * {@code getRemoteAddr()} passaria a ser o primeiro endereço do cabeçalho, que o cliente escolhe.
+ */
+@Component
+public class ClientIpResolver {
+
+    static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    /** Só literais IPv4 e IPv6; nomes nunca chegam ao {@link InetAddress#getByName}, que faria uma consulta DNS. */
+    private static final Pattern IPV4 = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+    private static final Pattern IPV6 = Pattern.compile("[0-9a-fA-F:.]*:[0-9a-fA-F:.]*");
+
+    private final List<Cidr> trustedProxies;
+
+    public ClientIpResolver(@Value("${security.clientIp.trustedProxies:}") String trustedProxies) {
+        List<Cidr> cidrs = new ArrayList<>();
+        for (String cidr : trustedProxies.split(",")) {
+            if (!cidr.isBlank()) {
+                cidrs.add(Cidr.parse(cidr.trim()));
+            }
+        }
+        this.trustedProxies = List.copyOf(cidrs);
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (!isTrusted(remoteAddr)) {
+            return remoteAddr;
+        }
+        List<String> hops = new ArrayList<>();
+        for (String header : Collections.list(request.getHeaders(FORWARDED_FOR))) {
+            for (String hop : header.split(",")) {
+                if (!hop.isBlank()) {
+                    hops.add(hop.trim());
+                }
+            }
+        }
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            if (!isTrusted(hops.get(i))) {
+                return hops.get(i);
+            }
+        }
+        // Só proxies confiáveis no caminho: o mais distante é o mais próximo do cliente que se conhece
+        return hops.isEmpty() ? remoteAddr : hops.get(0);
+    }
+
+    private boolean isTrusted(String address) {
+        byte[] bytes = toBytes(address);
+        if (bytes == null) {
+            return false;
+        }
+        for (Cidr cidr : trustedProxies) {
+            if (cidr.contains(bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] toBytes(String address) {
+        if (address == null || !(IPV4.matcher(address).matches() || IPV6.matcher(address).matches())) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(address).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    record Cidr(byte[] network, int prefixLength) {
+
+        static Cidr parse(String cidr) {
+            int slash = cidr.indexOf('/');
+            byte[] network = toBytes(slash < 0 ? cidr : cidr.substring(0, slash));
+            if (network == null) {
+                throw new IllegalArgumentException("Proxy confiável inválido: " + cidr);
+            }
+            int prefixLength = slash < 0 ? network.length * 8 : Integer.parseInt(cidr.substring(slash + 1));
+            if (prefixLength < 0 || prefixLength > network.length * 8) {
+                throw new IllegalArgumentException("Prefixo inválido: " + cidr);
+            }
+            return new Cidr(network, prefixLength);
+        }
+
+        boolean contains(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits);
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
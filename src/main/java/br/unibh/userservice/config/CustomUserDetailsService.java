@@ -1,30 +0,0 @@
-package br.unibh.userservice.config;
-
-import br.unibh.userservice.repository.UserRepository;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.stereotype.Service;
-
-@Service
-public class CustomUserDetailsService implements UserDetailsService {
-
-    private final UserRepository userRepository;
-
-    public CustomUserDetailsService(UserRepository userRepository) {
-        this.userRepository = userRepository;
-    }
-
-    @Override
-    public UserDetails loadUserByUsername(String login) throws UsernameNotFoundException {
-        var user = userRepository.findByEmail(login)
-                .or(() -> userRepository.findByUsername(login))
-                .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado"));
-
-        return org.springframework.security.core.userdetails.User
-                .withUsername(login)
-                .password(user.getPassword())
-                .authorities(user.getAuthorities())
-                .build();
-    }
-}
@@ -0,0 +1,40 @@
+package br.unibh.userservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+
+/**
+ * Clientes DynamoDB não bloqueantes, usados quando {@code aws.dynamodb.async.enabled=true}.
+ * As chamadas em andamento ficam no event loop do Netty, sem ocupar uma thread do Tomcat cada.
+ */
+@Configuration
+@ConditionalOnProperty(name = "aws.dynamodb.async.enabled", havingValue = "true")
+public class DynamoDbAsyncConfig {
+
+    @Value("${aws.region}")
+    private String awsRegion;
+
+    @Bean
+    public DynamoDbAsyncClient dynamoDbAsyncClient(DynamoDbConfig dynamoDbConfig,
+                                                   @Value("${aws.dynamodb.async.maxConcurrency:500}") int maxConcurrency) {
+        return dynamoDbConfig.withEndpoint(DynamoDbAsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(maxConcurrency)))
+                .build();
+    }
+
+    @Bean
+    public DynamoDbEnhancedAsyncClient dynamoDbEnhancedAsyncClient(DynamoDbAsyncClient dynamoDbAsyncClient) {
+        return DynamoDbEnhancedAsyncClient.builder()
+                .dynamoDbClient(dynamoDbAsyncClient)
+                .build();
+    }
+}
@@ -1,20 +1,22 @@
 package br.unibh.userservice.config;
 
 import java.net.URI;
+import java.time.Duration;
 
 import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserTableSchema;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
@@ -24,15 +26,48 @@ public class DynamoDbConfig {
     @Value("${aws.region}")
     private String awsRegion;
 
+    @Value("${aws.dynamodb.endpoint:}")
+    private String endpoint;
+
+    @Value("${aws.accessKeyId:}")
+    private String accessKeyId;
+
+    @Value("${aws.secretKey:}")
+    private String secretKey;
+
+    /**
+     * O pool de conexões HTTP é o limite real de chamadas simultâneas ao DynamoDB. Com threads virtuais
+     * ({@code spring.threads.virtual.enabled=true}) as requisições deixam de ser limitadas pelo pool do Tomcat,
+     * então ele precisa acompanhar; quem não consegue conexão espera até {@code connectionAcquisitionTimeoutMillis}.
+     */
     @Bean
     @Primary
     @Profile("prod")
-    public DynamoDbClient dynamoDbClientProd() {
-        return DynamoDbClient.builder()
+    public DynamoDbClient dynamoDbClientProd(@Value("${aws.dynamodb.maxConnections:50}") int maxConnections,
+                                             @Value("${aws.dynamodb.connectionAcquisitionTimeoutMillis:10000}") long acquisitionTimeoutMillis) {
+        return withEndpoint(DynamoDbClient.builder()
                 .region(Region.of(awsRegion))
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(maxConnections)
+                        .connectionAcquisitionTimeout(Duration.ofMillis(acquisitionTimeoutMillis))))
                 .build();
     }
 
+    /**
+     * Com {@code aws.dynamodb.endpoint} preenchido, aponta o cliente para outro endpoint, como o DynamoDB Local
+     * usado nos testes e no treino do arquivo CDS da imagem Docker. {@code aws.accessKeyId}/{@code aws.secretKey},
+     * se informados, substituem a cadeia padrão de credenciais.
+     */
+    <B extends AwsClientBuilder<B, ?>> B withEndpoint(B builder) {
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        if (!accessKeyId.isBlank()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKeyId, secretKey)));
+        }
+        return builder;
+    }
+
     @Bean
     @Primary
     public DynamoDbEnhancedClient dynamoDbEnhancedClient(DynamoDbClient dynamoDbClient) {
@@ -41,8 +76,13 @@ public class DynamoDbConfig {
                 .build();
     }
 
+    /**
+     * Tabela de usuários do cliente síncrono, com o schema estático compartilhado com o repositório assíncrono
+     * e o inicializador da tabela.
+     */
     @Bean
-    public DynamoDbTable<User> userTable(DynamoDbEnhancedClient enhancedClient) {
-        return enhancedClient.table("user", TableSchema.fromBean(User.class));
+    public DynamoDbTable<User> userTable(DynamoDbEnhancedClient enhancedClient,
+                                         @Value("${aws.dynamodb.tableName}") String tableName) {
+        return enhancedClient.table(tableName, UserTableSchema.USER);
     }
 }
\ No newline at end of file
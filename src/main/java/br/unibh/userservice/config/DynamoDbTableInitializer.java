@@ -0,0 +1,270 @@
+package br.unibh.userservice.config;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserTableSchema;
+import br.unibh.userservice.entity.UserUniqueKey;
+import br.unibh.userservice.repository.DynamoDbUserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.model.CreateTableEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.EnhancedGlobalSecondaryIndex;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.CreateGlobalSecondaryIndexAction;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexUpdate;
+import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.Projection;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Garante que a tabela de usuários e seus índices secundários globais existam na inicialização.
+ * <p>
+ * Em tabelas já existentes, os índices ausentes são criados via {@code UpdateTable}; o próprio DynamoDB
+ * faz o backfill dos itens existentes e a aplicação só conclui a inicialização quando o índice fica ACTIVE,
+ * já que consultas em um índice em backfill falham.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DynamoDbTableInitializer implements ApplicationRunner {
+
+    private static final Map<String, IndexKeys> INDEXES = Map.of(
+            User.USERNAME_INDEX, new IndexKeys("username", null, allAttributes()),
+            User.EMAIL_INDEX, new IndexKeys("email", null, allAttributes()),
+            // Listagens administrativas: só os atributos do UserResponseDTO, sem os hashes de senha
+            User.STATUS_INDEX, new IndexKeys("status", "createdAt", include("username", "email", "role", "updatedAt")),
+            User.ROLE_INDEX, new IndexKeys("role", "createdAt", include("username", "email", "status", "updatedAt"))
+    );
+    private static final Duration INDEX_POLL_INTERVAL = Duration.ofSeconds(5);
+
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbTable<User> userTable;
+    private final String tableName;
+    private final boolean autoCreateTable;
+    private final boolean migrateIndexes;
+    private final boolean normalizeKeys;
+    private final boolean backfillUniqueKeys;
+
+    public DynamoDbTableInitializer(DynamoDbClient dynamoDbClient,
+                                    DynamoDbEnhancedClient enhancedClient,
+                                    DynamoDbTable<User> userTable,
+                                    @Value("${aws.dynamodb.tableName}") String tableName,
+                                    @Value("${aws.dynamodb.autoCreateTable:true}") boolean autoCreateTable,
+                                    @Value("${aws.dynamodb.migrateIndexes:true}") boolean migrateIndexes,
+                                    @Value("${aws.dynamodb.normalizeKeys:false}") boolean normalizeKeys,
+                                    @Value("${aws.dynamodb.backfillUniqueKeys:false}") boolean backfillUniqueKeys) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.enhancedClient = enhancedClient;
+        this.userTable = userTable;
+        this.tableName = tableName;
+        this.autoCreateTable = autoCreateTable;
+        this.migrateIndexes = migrateIndexes;
+        this.normalizeKeys = normalizeKeys;
+        this.backfillUniqueKeys = backfillUniqueKeys;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        TableDescription table;
+        try {
+            table = dynamoDbClient.describeTable(b -> b.tableName(tableName)).table();
+        } catch (ResourceNotFoundException e) {
+            if (autoCreateTable) {
+                createTable();
+            } else {
+                log.warn("Tabela {} não encontrada e aws.dynamodb.autoCreateTable está desabilitado.", tableName);
+            }
+            return;
+        }
+
+        if (migrateIndexes) {
+            createMissingIndexes(table);
+        }
+        if (normalizeKeys) {
+            normalizeExistingKeys();
+        }
+        if (backfillUniqueKeys) {
+            backfillUniqueKeys();
+        }
+    }
+
+    private void createTable() {
+        log.info("Criando tabela {} com os índices {}", tableName, INDEXES.keySet());
+        CreateTableEnhancedRequest request = CreateTableEnhancedRequest.builder()
+                .globalSecondaryIndices(INDEXES.entrySet().stream()
+                        .map(index -> EnhancedGlobalSecondaryIndex.builder()
+                                .indexName(index.getKey())
+                                .projection(index.getValue().projection())
+                                .build())
+                        .toList())
+                .build();
+        userTable.createTable(request);
+        dynamoDbClient.waiter().waitUntilTableExists(b -> b.tableName(tableName));
+    }
+
+    private void createMissingIndexes(TableDescription table) {
+        Set<String> existing = table.hasGlobalSecondaryIndexes()
+                ? table.globalSecondaryIndexes().stream()
+                        .map(GlobalSecondaryIndexDescription::indexName)
+                        .collect(Collectors.toSet())
+                : Set.of();
+
+        boolean provisioned = table.billingModeSummary() == null
+                || table.billingModeSummary().billingMode() == BillingMode.PROVISIONED;
+
+        // O DynamoDB aceita apenas uma criação de índice por UpdateTable
+        INDEXES.forEach((indexName, keys) -> {
+            if (existing.contains(indexName)) {
+                return;
+            }
+            log.info("Criando índice {} na tabela {} (backfill dos itens existentes)", indexName, tableName);
+            List<KeySchemaElement> keySchema = new ArrayList<>();
+            List<AttributeDefinition> attributes = new ArrayList<>();
+            keySchema.add(KeySchemaElement.builder().attributeName(keys.partition()).keyType(KeyType.HASH).build());
+            attributes.add(stringAttribute(keys.partition()));
+            if (keys.sort() != null) {
+                keySchema.add(KeySchemaElement.builder().attributeName(keys.sort()).keyType(KeyType.RANGE).build());
+                attributes.add(stringAttribute(keys.sort()));
+            }
+            CreateGlobalSecondaryIndexAction.Builder action = CreateGlobalSecondaryIndexAction.builder()
+                    .indexName(indexName)
+                    .keySchema(keySchema)
+                    .projection(keys.projection());
+            if (provisioned) {
+                action.provisionedThroughput(ProvisionedThroughput.builder()
+                        .readCapacityUnits(table.provisionedThroughput().readCapacityUnits())
+                        .writeCapacityUnits(table.provisionedThroughput().writeCapacityUnits())
+                        .build());
+            }
+
+            dynamoDbClient.updateTable(b -> b
+                    .tableName(tableName)
+                    .attributeDefinitions(attributes)
+                    .globalSecondaryIndexUpdates(GlobalSecondaryIndexUpdate.builder().create(action.build()).build()));
+            waitUntilIndexActive(indexName);
+        });
+    }
+
+    private void waitUntilIndexActive(String indexName) {
+        while (true) {
+            IndexStatus status = dynamoDbClient.describeTable(b -> b.tableName(tableName)).table()
+                    .globalSecondaryIndexes().stream()
+                    .filter(index -> index.indexName().equals(indexName))
+                    .map(GlobalSecondaryIndexDescription::indexStatus)
+                    .findFirst()
+                    .orElse(IndexStatus.CREATING);
+            if (status == IndexStatus.ACTIVE) {
+                log.info("Índice {} ativo.", indexName);
+                return;
+            }
+            log.info("Aguardando índice {} (status: {})", indexName, status);
+            try {
+                Thread.sleep(INDEX_POLL_INTERVAL.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrompido aguardando o índice " + indexName, e);
+            }
+        }
+    }
+
+    /**
+     * Reescreve usuários gravados antes da normalização de username/email, para que as consultas
+     * nos índices (que sempre usam o valor normalizado) os encontrem.
+     */
+    private void normalizeExistingKeys() {
+        long updated = 0;
+        for (User user : userTable.scan(usersOnly()).items()) {
+            if (isNormalized(user.getUsername()) && isNormalized(user.getEmail())) {
+                continue;
+            }
+            user.setUsername(normalize(user.getUsername()));
+            user.setEmail(normalize(user.getEmail()));
+            userTable.putItem(user);
+            updated++;
+        }
+        log.info("Normalização de username/email concluída: {} usuários atualizados.", updated);
+    }
+
+    /**
+     * Grava as reservas de username/email dos usuários criados antes da unicidade transacional.
+     * É idempotente: reservas que já pertencem ao próprio usuário são ignoradas.
+     */
+    private void backfillUniqueKeys() {
+        DynamoDbTable<UserUniqueKey> uniqueKeyTable = enhancedClient.table(tableName, UserTableSchema.UNIQUE_KEY);
+        long created = 0;
+        for (User user : userTable.scan(usersOnly()).items()) {
+            for (UserUniqueKey key : List.of(UserUniqueKey.forUsername(user.getUsername(), user.getId()),
+                    UserUniqueKey.forEmail(user.getEmail(), user.getId()))) {
+                try {
+                    uniqueKeyTable.putItem(PutItemEnhancedRequest.builder(UserUniqueKey.class)
+                            .item(key)
+                            .conditionExpression(Expression.builder().expression("attribute_not_exists(id)").build())
+                            .build());
+                    created++;
+                } catch (ConditionalCheckFailedException e) {
+                    UserUniqueKey existing = uniqueKeyTable.getItem(key);
+                    if (existing != null && !user.getId().equals(existing.getUserId())) {
+                        log.warn("Reserva {} já pertence ao usuário {}; usuário {} está duplicado.",
+                                key.getId(), existing.getUserId(), user.getId());
+                    }
+                }
+            }
+        }
+        log.info("Backfill de reservas de username/email concluído: {} reservas criadas.", created);
+    }
+
+    private static ScanEnhancedRequest usersOnly() {
+        return ScanEnhancedRequest.builder().filterExpression(DynamoDbUserRepository.USER_ITEMS_ONLY).build();
+    }
+
+    private static Projection allAttributes() {
+        return Projection.builder().projectionType(ProjectionType.ALL).build();
+    }
+
+    private static Projection include(String... attributes) {
+        return Projection.builder().projectionType(ProjectionType.INCLUDE).nonKeyAttributes(attributes).build();
+    }
+
+    private static AttributeDefinition stringAttribute(String name) {
+        return AttributeDefinition.builder().attributeName(name).attributeType(ScalarAttributeType.S).build();
+    }
+
+    private static boolean isNormalized(String value) {
+        return value == null || value.equals(normalize(value));
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase();
+    }
+
+    /** Chaves e projeção de um índice; {@code sort} nulo indica índice só com chave de partição. */
+    private record IndexKeys(String partition, String sort, Projection projection) {
+    }
+}
@@ -0,0 +1,55 @@
+package br.unibh.userservice.config;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+/**
+ * Assinatura HMAC-SHA256 de dados opacos devolvidos ao cliente (cursores, checkpoints).
+ * <p>
+ * A chave nunca é o segredo configurado em si, e sim {@code HMAC(segredo, finalidade)}: o mesmo segredo pode
+ * servir ao JWT, ao cursor de paginação e ao checkpoint da exportação sem que uma assinatura de um uso seja
+ * aceita em outro, nem o segredo do JWT seja usado para assinar conteúdo montado a partir de dados do cliente.
+ */
+public final class HmacSigner {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    private HmacSigner(byte[] key) {
+        this.key = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    /**
+     * @param secret  Segredo configurado.
+     * @param purpose Finalidade da chave; finalidades diferentes dão chaves independentes.
+     */
+    public static HmacSigner forPurpose(String secret, String purpose) {
+        byte[] derived = mac(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM),
+                purpose.getBytes(StandardCharsets.UTF_8));
+        return new HmacSigner(derived);
+    }
+
+    public byte[] sign(byte[] payload) {
+        return mac(key, payload);
+    }
+
+    /** Compara em tempo constante, para que o tempo da resposta não revele a assinatura byte a byte. */
+    public boolean verify(byte[] payload, byte[] signature) {
+        return MessageDigest.isEqual(sign(payload), signature);
+    }
+
+    private static byte[] mac(SecretKeySpec key, byte[] payload) {
+        try {
+            // Mac não é thread-safe; criar um por chamada custa menos que sincronizar
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC indisponível.", e);
+        }
+    }
+}
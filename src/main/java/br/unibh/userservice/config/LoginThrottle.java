@@ -0,0 +1,222 @@
+package br.unibh.userservice.config;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.exception.ServiceExceptions;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Freia tentativas de login antes de qualquer busca do usuário ou hash BCrypt, para que uma rajada de
+ * credential stuffing não tome a CPU dos logins legítimos.
+ * <p>
+ * Cada login (normalizado) e cada IP de origem têm um balde de fichas: o balde comporta {@code capacity}
+ * tentativas seguidas e ganha uma ficha a cada {@code refillMillis}. O balde é um único {@link AtomicLong} com o
+ * instante em que ficaria cheio de novo, atualizado por CAS, então tentativas simultâneas não esperam umas pelas
+ * outras. Os baldes ficam em caches Caffeine que os descartam depois de {@code security.login.throttle.idleMillis}
+ * sem uso, nunca antes de o balde ter tido tempo de encher, e que guardam no máximo
+ * {@code security.login.throttle.maximumKeys} chaves cada; milhões de logins distintos não fazem a memória crescer
+ * sem limite.
+ * <p>
+ * O {@code GET /auth/availability} também revela quais usernames e emails existem, então cada IP tem ali um balde
+ * próprio, com o mesmo limite por IP do login.
+ * <p>
+ * O IP é o resolvido pelo {@link ClientIpResolver}, não o do load balancer.
+ * <p>
+ * Os baldes valem só para esta réplica. O bloqueio por senhas erradas, que precisa valer em todas, fica no
+ * próprio usuário: o contador {@code failedLogins} é somado com {@code UpdateItem ADD} e, com
+ * {@code security.login.lockout.maxFailures} falhas dentro de {@code security.login.lockout.windowMillis}, o
+ * login é recusado sem conferir a senha até a janela passar. O usuário conferido aqui vem do índice, nunca do
+ * cache ({@code findForAuthentication}); o contador pode estar atrás da tabela só pelo atraso do índice.
+ */
+@Slf4j
+@Component
+public class LoginThrottle {
+
+    static final String MESSAGE = "Muitas tentativas de login. Tente novamente mais tarde.";
+    static final String AVAILABILITY_MESSAGE = "Muitas consultas de disponibilidade. Tente novamente mais tarde.";
+    /** Prefixo dos baldes de disponibilidade no cache de IPs, separados dos baldes de login do mesmo IP. */
+    private static final String AVAILABILITY_PREFIX = "availability:";
+
+    private final boolean enabled;
+    private final Limit perLogin;
+    private final Limit perIp;
+    private final Cache<String, TokenBucket> loginBuckets;
+    private final Cache<String, TokenBucket> ipBuckets;
+    private final int maxFailures;
+    private final Duration lockoutWindow;
+    private final Counter loginRejections;
+    private final Counter ipRejections;
+    private final Counter lockedRejections;
+    private final Counter availabilityRejections;
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${security.login.throttle.enabled:true}") boolean enabled,
+                         @Value("${security.login.throttle.perLoginCapacity:5}") int perLoginCapacity,
+                         @Value("${security.login.throttle.perLoginRefillMillis:60000}") long perLoginRefillMillis,
+                         @Value("${security.login.throttle.perIpCapacity:20}") int perIpCapacity,
+                         @Value("${security.login.throttle.perIpRefillMillis:1000}") long perIpRefillMillis,
+                         @Value("${security.login.throttle.idleMillis:600000}") long idleMillis,
+                         @Value("${security.login.throttle.maximumKeys:1000000}") long maximumKeys,
+                         @Value("${security.login.lockout.maxFailures:10}") int maxFailures,
+                         @Value("${security.login.lockout.windowMillis:900000}") long lockoutWindowMillis) {
+        this.enabled = enabled;
+        this.perLogin = new Limit(perLoginCapacity, perLoginRefillMillis);
+        this.perIp = new Limit(perIpCapacity, perIpRefillMillis);
+        this.loginBuckets = buckets(perLogin, idleMillis, maximumKeys);
+        this.ipBuckets = buckets(perIp, idleMillis, maximumKeys);
+        this.maxFailures = maxFailures;
+        this.lockoutWindow = Duration.ofMillis(lockoutWindowMillis);
+        CaffeineCacheMetrics.monitor(meterRegistry, loginBuckets, "security.login.throttle.logins");
+        CaffeineCacheMetrics.monitor(meterRegistry, ipBuckets, "security.login.throttle.ips");
+        this.loginRejections = meterRegistry.counter("security.login.rejected", "reason", "login");
+        this.ipRejections = meterRegistry.counter("security.login.rejected", "reason", "ip");
+        this.lockedRejections = meterRegistry.counter("security.login.rejected", "reason", "lockout");
+        this.availabilityRejections = meterRegistry.counter("security.login.rejected", "reason", "availability");
+    }
+
+    /**
+     * Um balde descartado volta cheio; descartá-lo só depois do tempo de encher não dá fichas a mais a ninguém.
+     */
+    private static Cache<String, TokenBucket> buckets(Limit limit, long idleMillis, long maximumKeys) {
+        return Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofNanos(Math.max(TimeUnit.MILLISECONDS.toNanos(idleMillis), limit.burstNanos())))
+                .maximumSize(maximumKeys)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Gasta uma ficha do IP e uma do login. Chamado no início do login, antes de buscar o usuário.
+     *
+     * @throws ServiceExceptions.TooManyRequestsException se algum dos dois baldes estiver vazio.
+     */
+    public void acquire(String login, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        if (clientIp != null) {
+            reject(ipBuckets.get(clientIp, key -> new TokenBucket()).tryAcquire(perIp), ipRejections);
+        }
+        if (login != null) {
+            String key = login.trim().toLowerCase(Locale.ROOT);
+            reject(loginBuckets.get(key, k -> new TokenBucket()).tryAcquire(perLogin), loginRejections);
+        }
+    }
+
+    /**
+     * Gasta uma ficha do balde de consultas de disponibilidade do IP, para que o endpoint não sirva para listar
+     * quais usernames e emails existem.
+     *
+     * @throws ServiceExceptions.TooManyRequestsException se o balde estiver vazio.
+     */
+    public void acquireAvailability(String clientIp) {
+        if (!enabled || clientIp == null) {
+            return;
+        }
+        reject(ipBuckets.get(AVAILABILITY_PREFIX + clientIp, key -> new TokenBucket()).tryAcquire(perIp),
+                availabilityRejections, AVAILABILITY_MESSAGE);
+    }
+
+    private static void reject(long waitNanos, Counter rejections) {
+        reject(waitNanos, rejections, MESSAGE);
+    }
+
+    private static void reject(long waitNanos, Counter rejections, String message) {
+        if (waitNanos > 0) {
+            rejections.increment();
+            throw new ServiceExceptions.TooManyRequestsException(message, retryAfterSeconds(waitNanos));
+        }
+    }
+
+    /**
+     * Recusa o login de um usuário bloqueado por senhas erradas, antes de conferir a senha.
+     *
+     * @throws ServiceExceptions.TooManyRequestsException se o usuário atingiu o limite de falhas dentro da janela.
+     */
+    public void checkNotLocked(User user) {
+        if (maxFailures <= 0 || user.getFailedLogins() == null || user.getFailedLogins() < maxFailures
+                || user.getLastFailedLoginAt() == null) {
+            return;
+        }
+        LocalDateTime lockedUntil = user.getLastFailedLoginAt().plus(lockoutWindow);
+        Duration remaining = Duration.between(LocalDateTime.now(), lockedUntil);
+        if (!remaining.isNegative() && !remaining.isZero()) {
+            lockedRejections.increment();
+            throw new ServiceExceptions.TooManyRequestsException(MESSAGE, retryAfterSeconds(remaining.toNanos()));
+        }
+    }
+
+    /** Falhas gravadas antes deste instante já não contam para o bloqueio. */
+    public LocalDateTime failureWindowStart() {
+        return LocalDateTime.now().minus(lockoutWindow);
+    }
+
+    /** Registra no log o usuário que acabou de atingir o limite de falhas. */
+    public void failed(User user, long failures) {
+        if (maxFailures > 0 && failures == maxFailures) {
+            log.warn("Usuário {} bloqueado por {} ms após {} senhas erradas.", user.getId(), lockoutWindow.toMillis(), failures);
+        }
+    }
+
+    /** O usuário tem falhas gravadas a zerar depois de um login bem-sucedido. */
+    public static boolean hasFailedLogins(User user) {
+        return user.getFailedLogins() != null && user.getFailedLogins() > 0;
+    }
+
+    private static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    /** {@code capacity} tentativas seguidas e uma ficha nova a cada {@code refillMillis}. */
+    record Limit(int capacity, long refillMillis) {
+
+        long intervalNanos() {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(1, refillMillis));
+        }
+
+        long burstNanos() {
+            return Math.max(1, capacity) * intervalNanos();
+        }
+    }
+
+    /**
+     * Balde de fichas guardado como o instante (em {@link System#nanoTime()}) em que ele estaria cheio de novo.
+     * Gastar uma ficha empurra esse instante um intervalo para frente; o balde está vazio quando o instante passa
+     * de {@code agora + capacidade * intervalo}.
+     */
+    static final class TokenBucket {
+
+        private final AtomicLong fullAt = new AtomicLong(System.nanoTime());
+
+        /** @return {@code 0} se a ficha foi gasta, ou quanto falta, em nanossegundos, para a próxima ficha. */
+        long tryAcquire(Limit limit) {
+            long interval = limit.intervalNanos();
+            long burst = limit.burstNanos();
+            while (true) {
+                long now = System.nanoTime();
+                long current = fullAt.get();
+                // Um balde parado há muito tempo está cheio, não com fichas acumuladas além da capacidade
+                long next = Math.max(current, now) + interval;
+                long wait = next - now - burst;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
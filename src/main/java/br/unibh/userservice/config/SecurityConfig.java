@@ -1,18 +1,20 @@
 package br.unibh.userservice.config;
 
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.time.Duration;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig{
@@ -27,10 +29,17 @@ public class SecurityConfig{
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authorize -> authorize
+                        // O despacho ASYNC entrega o resultado de uma requisição já autorizada na entrada
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                         .requestMatchers("/auth/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
 
                         .requestMatchers(HttpMethod.GET, "/users").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/users/import").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/users/batch").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/users/export").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PATCH, "/users/*/role").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PATCH, "/users/*/status").hasRole("ADMIN")
 //                        .requestMatchers(HttpMethod.GET, "/users/*").authenticated()
@@ -45,12 +54,21 @@ public class SecurityConfig{
     }
 
     @Bean
-    public AuthenticationManager authenticationManager(AuthenticationConfiguration authenticationConfiguration) throws Exception {
-        return authenticationConfiguration.getAuthenticationManager();
+    public AuthenticationManager authenticationManager(UserAuthenticationProvider userAuthenticationProvider) {
+        return new ProviderManager(userAuthenticationProvider);
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(@Value("${security.password.bcryptStrength:-1}") int bcryptStrength,
+                                                  @Value("${security.password.bcryptMinStrength:10}") int bcryptMinStrength,
+                                                  @Value("${security.password.bcryptTargetMillis:250}") long bcryptTargetMillis,
+                                                  @Value("${security.password.hashingThreads:0}") int hashingThreads,
+                                                  @Value("${security.password.hashingQueueCapacity:64}") int hashingQueueCapacity,
+                                                  @Value("${security.password.hashingTimeoutMillis:5000}") long hashingTimeoutMillis) {
+        int strength = bcryptStrength > 0
+                ? bcryptStrength
+                : BoundedPasswordEncoder.calibrateStrength(Duration.ofMillis(bcryptTargetMillis), bcryptMinStrength);
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(strength, threads, hashingQueueCapacity, Duration.ofMillis(hashingTimeoutMillis));
     }
 }
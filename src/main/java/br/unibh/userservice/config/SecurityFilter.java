@@ -1,14 +1,20 @@
 package br.unibh.userservice.config;
 
 import br.unibh.userservice.exception.TokenExceptions;
+import br.unibh.userservice.entity.User;
 import br.unibh.userservice.exception.UserExceptions;
-import br.unibh.userservice.repository.UserRepository;
+import br.unibh.userservice.service.AsyncUserService;
+import br.unibh.userservice.service.UserIdentityMap;
+import br.unibh.userservice.service.UserQueryService;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,15 +22,29 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 @Component
 public class SecurityFilter extends OncePerRequestFilter {
     private final TokenService tokenService;
-    private final UserRepository userRepository;
+    private final UserQueryService userQueryService;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final UserIdentityMap identityMap;
+    private final boolean statelessAuthentication;
+    /** Presente só com {@code aws.dynamodb.async.enabled=true}; resolvido na primeira requisição. */
+    private final ObjectProvider<AsyncUserService> asyncUserService;
 
-    public SecurityFilter(TokenService tokenService, UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public SecurityFilter(TokenService tokenService, UserQueryService userQueryService,
+                          TokenRevocationRegistry tokenRevocationRegistry, UserIdentityMap identityMap,
+                          @Value("${jwt.token.stateless:false}") boolean statelessAuthentication,
+                          ObjectProvider<AsyncUserService> asyncUserService) {
+        this.asyncUserService = asyncUserService;
+        this.userQueryService = userQueryService;
         this.tokenService = tokenService;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
+        this.identityMap = identityMap;
+        this.statelessAuthentication = statelessAuthentication;
     }
 
 
@@ -34,10 +54,10 @@ public class SecurityFilter extends OncePerRequestFilter {
         var token = this.recoverToken(request);
         try {
             if (token != null) {
-                var subject = tokenService.validateToken(token);
-                UserDetails user = userRepository.findByEmail(subject)
-                        .or(() -> userRepository.findByUsername(subject))
-                        .orElseThrow(() -> new UserExceptions.UserNotFoundException("Usuário associado ao token não foi encontrado."));
+                DecodedJWT decodedJWT = tokenService.verify(token);
+                UserDetails user = statelessAuthentication && tokenService.hasPrincipalClaims(decodedJWT)
+                        ? principalFromClaims(decodedJWT)
+                        : loadUser(decodedJWT);
 
                 var authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
                 SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -55,6 +75,42 @@ public class SecurityFilter extends OncePerRequestFilter {
         }
     }
 
+    private UserDetails principalFromClaims(DecodedJWT decodedJWT) {
+        var user = tokenService.toPrincipal(decodedJWT);
+        if (tokenRevocationRegistry.isRevoked(user.getId(), TokenService.tokenVersionOf(user))) {
+            throw new TokenExceptions.InvalidTokenException("Token revogado.");
+        }
+        return user;
+    }
+
+    private UserDetails loadUser(DecodedJWT decodedJWT) {
+        var user = findForAuthentication(tokenService.userIdOf(decodedJWT), decodedJWT.getSubject())
+                .orElseThrow(() -> new UserExceptions.UserNotFoundException("Usuário associado ao token não foi encontrado."));
+        // Operações do próprio usuário nesta requisição reaproveitam a leitura feita na autenticação
+        identityMap.put(user);
+        return user;
+    }
+
+    /**
+     * Lê o usuário com leitura consistente pelo id do token, sem cache, para que um bloqueio, exclusão ou troca de
+     * papel valha na próxima requisição em qualquer réplica. Tokens sem o id resolvem o usuário pelo índice.
+     * <p>
+     * No modo assíncrono a busca vai pelo cliente assíncrono do DynamoDB, sem ocupar uma conexão do cliente
+     * síncrono; a thread da requisição ainda espera o resultado, porque a autorização depende do usuário. Com
+     * {@code jwt.token.stateless=true} essa busca não acontece.
+     */
+    private Optional<User> findForAuthentication(String userId, String subject) {
+        AsyncUserService async = asyncUserService.getIfAvailable();
+        if (async == null) {
+            return userQueryService.findForAuthentication(userId, subject);
+        }
+        try {
+            return async.findForAuthentication(userId, subject).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
     private String recoverToken(HttpServletRequest request) {
         var authHeader = request.getHeader("Authorization");
         if (authHeader != null) {
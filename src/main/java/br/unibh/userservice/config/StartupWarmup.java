@@ -0,0 +1,154 @@
+package br.unibh.userservice.config;
+
+import br.unibh.userservice.dto.UserResponseDTO;
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+/**
+ * Aquece a aplicação antes de ela ser anunciada como pronta.
+ * <p>
+ * O Spring Boot só publica o estado de readiness {@code ACCEPTING_TRAFFIC} depois de todos os
+ * {@link ApplicationRunner}, então um pod novo só recebe tráfego depois daqui. Sem isso, as primeiras requisições
+ * pagam a abertura das conexões TLS com o DynamoDB, a resolução de credenciais e a compilação pelo JIT do
+ * BCrypt, da assinatura JWT e da serialização dos DTOs.
+ * <p>
+ * Roda depois do {@link DynamoDbTableInitializer}. Falhas só são registradas: o aquecimento não impede a subida.
+ * <p>
+ * Com {@code warmup.exitAfterWarmup=true} a aplicação termina logo após o aquecimento. É o treino do arquivo
+ * CDS da imagem Docker: o JVM grava ao sair todas as classes carregadas na subida e no aquecimento.
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class StartupWarmup implements ApplicationRunner {
+
+    private final DynamoDbClient dynamoDbClient;
+    private final ObjectProvider<DynamoDbAsyncClient> asyncClient;
+    private final DynamoDbTable<User> userTable;
+    private final TokenService tokenService;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final String tableName;
+    private final int connections;
+    private final int iterations;
+    private final boolean exitAfterWarmup;
+    private final ConfigurableApplicationContext context;
+
+    public StartupWarmup(DynamoDbClient dynamoDbClient, ObjectProvider<DynamoDbAsyncClient> asyncClient,
+                         DynamoDbTable<User> userTable, TokenService tokenService,
+                         BoundedPasswordEncoder passwordEncoder, ObjectMapper objectMapper,
+                         @Value("${aws.dynamodb.tableName}") String tableName,
+                         @Value("${warmup.dynamoDbConnections:8}") int connections,
+                         @Value("${warmup.iterations:500}") int iterations,
+                         @Value("${warmup.exitAfterWarmup:false}") boolean exitAfterWarmup,
+                         ConfigurableApplicationContext context) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.asyncClient = asyncClient;
+        this.userTable = userTable;
+        this.tokenService = tokenService;
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.tableName = tableName;
+        this.connections = connections;
+        this.iterations = iterations;
+        this.exitAfterWarmup = exitAfterWarmup;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        warm("DynamoDB", this::warmDynamoDb);
+        warm("JWT e JSON", this::warmTokensAndJson);
+        warm("BCrypt", this::warmPasswordHashing);
+        log.info("Aquecimento concluído em {} ms.", (System.nanoTime() - start) / 1_000_000);
+        if (exitAfterWarmup) {
+            log.info("warmup.exitAfterWarmup habilitado; encerrando a aplicação.");
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    /**
+     * Chamadas simultâneas abrem {@code connections} conexões no pool, que ficam vivas para as requisições.
+     * O {@code GetItem} de um id inexistente passa também pelo schema e pelo mapeamento do cliente enhanced.
+     */
+    private void warmDynamoDb() {
+        ExecutorService pool = Executors.newFixedThreadPool(connections, new CustomizableThreadFactory("warmup-"));
+        try {
+            List<CompletableFuture<Void>> calls = IntStream.range(0, connections)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> dynamoDbClient.describeTable(b -> b.tableName(tableName)), pool))
+                    .toList();
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            pool.shutdown();
+        }
+        userTable.getItem(Key.builder().partitionValue("WARMUP#").build());
+
+        asyncClient.ifAvailable(client -> CompletableFuture.allOf(IntStream.range(0, connections)
+                        .mapToObj(i -> client.describeTable(b -> b.tableName(tableName)))
+                        .toArray(CompletableFuture[]::new))
+                .join());
+    }
+
+    /**
+     * Tokens com ids diferentes, para não cair no cache de tokens verificados e exercitar de fato a validação.
+     */
+    private void warmTokensAndJson() throws Exception {
+        User user = new User();
+        user.setUsername("warmup");
+        user.setRole(UserRole.USER);
+        user.setStatus(UserState.ACTIVE);
+        for (int i = 0; i < iterations; i++) {
+            user.setId("warmup-" + i);
+            tokenService.toPrincipal(tokenService.verify(tokenService.generateToken(user)));
+            objectMapper.writeValueAsBytes(new UserResponseDTO(user.getId(), user.getUsername(), "warmup@example.com",
+                    user.getStatus(), LocalDateTime.now(), user.getRole()));
+        }
+    }
+
+    /** Um hash e uma verificação já percorrem milhares de vezes o laço do BCrypt, e usam o pool de hashing. */
+    private void warmPasswordHashing() {
+        passwordEncoder.matches("senha-de-aquecimento", passwordEncoder.encode("senha-de-aquecimento"));
+    }
+
+    private static void warm(String step, WarmupStep warmup) {
+        long start = System.nanoTime();
+        try {
+            warmup.run();
+            log.info("Aquecimento de {}: {} ms.", step, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("Aquecimento de {} falhou: {}", step, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface WarmupStep {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,190 @@
+package br.unibh.userservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tabela em memória com a versão mínima de token aceita por usuário, usada no modo de autenticação stateless.
+ * <p>
+ * Quando role, status, senha ou username mudam, a versão do usuário é incrementada e publicada no item
+ * {@code TOKEN_VERSIONS} da tabela de usuários. Cada réplica recarrega esse item periodicamente, então
+ * tokens antigos deixam de ser aceitos em no máximo um intervalo de atualização. Entradas mais antigas que
+ * a validade de um token são removidas, o que mantém o item pequeno.
+ */
+@Slf4j
+@Component
+public class TokenRevocationRegistry implements DisposableBean {
+
+    static final String ITEM_ID = "TOKEN_VERSIONS";
+    private static final String VERSIONS = "versions";
+    private static final String VERSION = "v";
+    private static final String REVOKED_AT = "at";
+    private static final int MAX_REMOVALS_PER_UPDATE = 100;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final boolean enabled;
+    private final Map<String, Revocation> revocations = new ConcurrentHashMap<>();
+    /** Roda as gravações pedidas pelo modo assíncrono, que não podem ocupar as threads do SDK. */
+    private final ExecutorService executor;
+
+    public TokenRevocationRegistry(DynamoDbClient dynamoDbClient,
+                                   @Value("${aws.dynamodb.tableName}") String tableName,
+                                   @Value("${jwt.token.stateless:false}") boolean enabled) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.enabled = enabled;
+        this.executor = enabled
+                ? Executors.newFixedThreadPool(2, new CustomizableThreadFactory("token-revocation-"))
+                : null;
+    }
+
+    public boolean isRevoked(String userId, long tokenVersion) {
+        Revocation revocation = revocations.get(userId);
+        return revocation != null && tokenVersion < revocation.version();
+    }
+
+    /**
+     * Registra que tokens do usuário com versão menor que {@code minimumVersion} não são mais aceitos.
+     */
+    public void revoke(String userId, long minimumVersion) {
+        if (!enabled) {
+            return;
+        }
+        Revocation revocation = new Revocation(minimumVersion, Instant.now().toEpochMilli());
+        revocations.merge(userId, revocation, Revocation::newest);
+
+        Map<String, AttributeValue> entry = Map.of(
+                VERSION, AttributeValue.fromN(Long.toString(revocation.version())),
+                REVOKED_AT, AttributeValue.fromN(Long.toString(revocation.revokedAt())));
+        try {
+            dynamoDbClient.updateItem(b -> b
+                    .tableName(tableName)
+                    .key(itemKey())
+                    .updateExpression("SET #versions.#uid = :entry")
+                    .conditionExpression("attribute_exists(#versions) AND "
+                            + "(attribute_not_exists(#versions.#uid) OR #versions.#uid.#v < :version)")
+                    .expressionAttributeNames(Map.of("#versions", VERSIONS, "#uid", userId, "#v", VERSION))
+                    .expressionAttributeValues(Map.of(
+                            ":entry", AttributeValue.fromM(entry),
+                            ":version", entry.get(VERSION))));
+        } catch (ConditionalCheckFailedException e) {
+            // Ou o item ainda não existe, ou outra réplica já publicou uma versão mais nova
+            createItemWith(userId, entry);
+        }
+    }
+
+    /**
+     * Variante de {@link #revoke} para o modo assíncrono: a gravação no DynamoDB é bloqueante e roda num pool
+     * próprio, fora das threads que completam os futuros do SDK.
+     */
+    public CompletableFuture<Void> revokeAsync(String userId, long minimumVersion) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> revoke(userId, minimumVersion), executor);
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.token.revocationRefreshMillis:30000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            var response = dynamoDbClient.getItem(b -> b.tableName(tableName).key(itemKey()).consistentRead(true));
+            long expiredBefore = Instant.now().minus(TokenService.TOKEN_TTL).toEpochMilli();
+
+            Map<String, AttributeValue> stored = response.hasItem() && response.item().containsKey(VERSIONS)
+                    ? response.item().get(VERSIONS).m()
+                    : Map.of();
+
+            List<String> expired = stored.entrySet().stream()
+                    .filter(e -> Long.parseLong(e.getValue().m().get(REVOKED_AT).n()) < expiredBefore)
+                    .map(Map.Entry::getKey)
+                    .toList();
+
+            stored.forEach((userId, value) -> revocations.merge(userId, new Revocation(
+                    Long.parseLong(value.m().get(VERSION).n()),
+                    Long.parseLong(value.m().get(REVOKED_AT).n())), Revocation::newest));
+            revocations.values().removeIf(revocation -> revocation.revokedAt() < expiredBefore);
+
+            removeExpired(expired, expiredBefore);
+        } catch (DynamoDbException e) {
+            log.warn("Falha ao atualizar a tabela de revogação de tokens: {}", e.getMessage());
+        }
+    }
+
+    private void createItemWith(String userId, Map<String, AttributeValue> entry) {
+        try {
+            dynamoDbClient.putItem(b -> b
+                    .tableName(tableName)
+                    .item(Map.of(
+                            "id", AttributeValue.fromS(ITEM_ID),
+                            VERSIONS, AttributeValue.fromM(Map.of(userId, AttributeValue.fromM(entry)))))
+                    .conditionExpression("attribute_not_exists(id)"));
+        } catch (ConditionalCheckFailedException ignored) {
+            // O item já existe e guarda uma versão igual ou mais nova para o usuário
+        }
+    }
+
+    private void removeExpired(List<String> userIds, long expiredBefore) {
+        for (int start = 0; start < userIds.size(); start += MAX_REMOVALS_PER_UPDATE) {
+            List<String> chunk = userIds.subList(start, Math.min(start + MAX_REMOVALS_PER_UPDATE, userIds.size()));
+            Map<String, String> names = new HashMap<>();
+            names.put("#versions", VERSIONS);
+            names.put("#at", REVOKED_AT);
+            StringBuilder update = new StringBuilder("REMOVE ");
+            StringBuilder condition = new StringBuilder();
+            for (int i = 0; i < chunk.size(); i++) {
+                names.put("#u" + i, chunk.get(i));
+                update.append(i == 0 ? "" : ", ").append("#versions.#u").append(i);
+                condition.append(i == 0 ? "" : " AND ").append("#versions.#u").append(i).append(".#at < :cutoff");
+            }
+            try {
+                dynamoDbClient.updateItem(b -> b
+                        .tableName(tableName)
+                        .key(itemKey())
+                        .updateExpression(update.toString())
+                        .conditionExpression(condition.toString())
+                        .expressionAttributeNames(names)
+                        .expressionAttributeValues(Map.of(":cutoff", AttributeValue.fromN(Long.toString(expiredBefore)))));
+            } catch (ConditionalCheckFailedException e) {
+                // Alguma entrada foi renovada por outra réplica; a limpeza é refeita na próxima atualização
+            }
+        }
+    }
+
+    private static Map<String, AttributeValue> itemKey() {
+        return Map.of("id", AttributeValue.fromS(ITEM_ID));
+    }
+
+    private record Revocation(long version, long revokedAt) {
+        static Revocation newest(Revocation a, Revocation b) {
+            return a.version() >= b.version() ? a : b;
+        }
+    }
+}
@@ -1,31 +1,69 @@
 package br.unibh.userservice.config;
 
 import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
 import br.unibh.userservice.exception.TokenExceptions;
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.LocalDateTime;
+import java.util.Base64;
 
 
 @Service
 public class TokenService {
 
-    @Value("${jwt.token.secret}")
-    private String secret;
+    public static final Duration TOKEN_TTL = Duration.ofHours(2);
+
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLE = "roles";
+    static final String CLAIM_STATUS = "status";
+    static final String CLAIM_TOKEN_VERSION = "ver";
+
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+    private final Cache<String, DecodedJWT> verifiedTokens;
+
+    public TokenService(@Value("${jwt.token.secret}") String secret,
+                        @Value("${jwt.token.verifiedCacheSize:10000}") long verifiedCacheSize,
+                        MeterRegistry meterRegistry) {
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm)
+                .withIssuer("auth-api")
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verifiedTokens");
+    }
 
     public String generateToken(User user) {
         try{
-            Algorithm algorithm = Algorithm.HMAC256(secret);
             String token = JWT.create()
                     .withIssuer("auth-api")
                     .withSubject(user.getUsername())
                     .withExpiresAt(generateExpirationDate())
-                    .withClaim("roles", user.getRole().toString())
+                    .withClaim(CLAIM_ROLE, user.getRole().toString())
+                    .withClaim(CLAIM_USER_ID, user.getId())
+                    .withClaim(CLAIM_STATUS, user.getStatus().toString())
+                    .withClaim(CLAIM_TOKEN_VERSION, tokenVersionOf(user))
                     .sign(algorithm);
             return token;
         }catch (JWTCreationException exception) {
@@ -34,17 +72,96 @@ public class TokenService {
     }
 
     public String validateToken(String token) {
+        return verify(token).getSubject();
+    }
 
-        Algorithm algorithm = Algorithm.HMAC256(secret);
-        var verifier = JWT.require(algorithm)
-                .withIssuer("auth-api")
-                .build();
-        var decodedJWT = verifier.verify(token);
-        return decodedJWT.getSubject();
+    /**
+     * Valida assinatura, emissor e expiração do token. Tokens já verificados ficam em cache até o seu
+     * {@code exp}, então requisições repetidas com o mesmo bearer token não refazem o HMAC.
+     */
+    public DecodedJWT verify(String token) {
+        String key = digest(token);
+        DecodedJWT cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        DecodedJWT decodedJWT = verifier.verify(token);
+        verifiedTokens.put(key, decodedJWT);
+        return decodedJWT;
+    }
+
+    public CacheStats verifiedTokenCacheStats() {
+        var stats = verifiedTokens.stats();
+        return new CacheStats(stats.hitCount(), stats.missCount());
+    }
+
+    /**
+     * Indica se o token carrega as claims necessárias para montar o principal sem consultar o DynamoDB.
+     * Tokens emitidos antes dessas claims continuam válidos, mas exigem a busca do usuário.
+     */
+    public boolean hasPrincipalClaims(DecodedJWT jwt) {
+        return !jwt.getClaim(CLAIM_USER_ID).isMissing()
+                && !jwt.getClaim(CLAIM_STATUS).isMissing()
+                && !jwt.getClaim(CLAIM_TOKEN_VERSION).isMissing();
+    }
 
+    public User toPrincipal(DecodedJWT jwt) {
+        try {
+            User user = new User();
+            user.setId(jwt.getClaim(CLAIM_USER_ID).asString());
+            user.setUsername(jwt.getSubject());
+            user.setRole(UserRole.valueOf(jwt.getClaim(CLAIM_ROLE).asString()));
+            user.setStatus(UserState.valueOf(jwt.getClaim(CLAIM_STATUS).asString()));
+            user.setTokenVersion(jwt.getClaim(CLAIM_TOKEN_VERSION).asLong());
+            return user;
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new TokenExceptions.InvalidTokenException("Claims do token inválidas.");
+        }
+    }
+
+    /** Id do usuário no token, ou {@code null} em tokens emitidos antes dessa claim. */
+    public String userIdOf(DecodedJWT jwt) {
+        return jwt.getClaim(CLAIM_USER_ID).asString();
+    }
+
+    public static long tokenVersionOf(User user) {
+        return user.getTokenVersion() == null ? 0L : user.getTokenVersion();
     }
 
     private Instant generateExpirationDate() {
-        return LocalDateTime.now().plusHours(2).toInstant(java.time.ZoneOffset.of("-03:00"));
+        return Instant.now().plus(TOKEN_TTL);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    public record CacheStats(long hits, long misses) {
+    }
+
+    private static class UntilTokenExpiry implements Expiry<String, DecodedJWT> {
+        @Override
+        public long expireAfterCreate(String key, DecodedJWT jwt, long currentTime) {
+            Instant expiresAt = jwt.getExpiresAtAsInstant();
+            if (expiresAt == null) {
+                return TOKEN_TTL.toNanos();
+            }
+            return Math.max(0, Duration.between(Instant.now(), expiresAt).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, DecodedJWT jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, DecodedJWT jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,117 @@
+package br.unibh.userservice.config;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.repository.UserField;
+import br.unibh.userservice.repository.UserRepository;
+import br.unibh.userservice.service.UserQueryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Autentica login (username ou email) e senha. O usuário é lido uma vez, do índice de username/email e nunca do
+ * cache ({@link UserQueryService#findForAuthentication}). O principal devolvido é a própria entidade {@link User}, reaproveitada pelo restante do fluxo de login.
+ * Usuários bloqueados por senhas erradas ({@link LoginThrottle}) são recusados antes do BCrypt.
+ */
+@Slf4j
+@Component
+public class UserAuthenticationProvider implements AuthenticationProvider {
+
+    private final UserQueryService userQueryService;
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final LoginThrottle loginThrottle;
+    private volatile String dummyPasswordHash;
+
+    public UserAuthenticationProvider(UserQueryService userQueryService, UserRepository userRepository, PasswordEncoder passwordEncoder,
+                                      LoginThrottle loginThrottle) {
+        this.userQueryService = userQueryService;
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.loginThrottle = loginThrottle;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String login = authentication.getName();
+        String password = authentication.getCredentials() == null ? "" : authentication.getCredentials().toString();
+
+        User user = userQueryService.findForAuthentication(null, login).orElse(null);
+        if (user == null) {
+            // Mantém o tempo de resposta igual ao de uma senha errada, para não revelar quais logins existem
+            passwordEncoder.matches(password, dummyPasswordHash());
+            throw new BadCredentialsException("Credenciais inválidas");
+        }
+
+        loginThrottle.checkNotLocked(user);
+        if (!passwordEncoder.matches(password, user.getPassword())) {
+            recordFailedLogin(user);
+            throw new BadCredentialsException("Credenciais inválidas");
+        }
+        if (LoginThrottle.hasFailedLogins(user)) {
+            clearFailedLogins(user);
+        }
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            rehash(user, password);
+        }
+
+        return UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    /**
+     * Regrava o hash com o custo BCrypt atual. Uma falha aqui não impede o login; o hash é refeito na próxima vez.
+     */
+    private void rehash(User user, String password) {
+        try {
+            String hash = passwordEncoder.encode(password);
+            // Condicionado à versão lida: se a senha foi trocada nesse meio tempo, o hash antigo não a sobrescreve
+            User atualizado = userRepository.updateFields(user, Map.of(UserField.PASSWORD, hash), false);
+            user.setPassword(hash);
+            user.setVersion(atualizado.getVersion());
+            log.info("Hash de senha do usuário {} atualizado para o custo BCrypt atual.", user.getId());
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível atualizar o hash de senha do usuário {}: {}", user.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Soma a senha errada ao contador do usuário, compartilhado pelas réplicas. Uma falha aqui não muda a resposta
+     * do login; só deixa de contar esta tentativa.
+     */
+    private void recordFailedLogin(User user) {
+        try {
+            loginThrottle.failed(user, userRepository.recordFailedLogin(user, loginThrottle.failureWindowStart()));
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível registrar a senha errada do usuário {}: {}", user.getId(), e.getMessage());
+        }
+    }
+
+    private void clearFailedLogins(User user) {
+        try {
+            userRepository.clearFailedLogins(user.getId());
+            user.setFailedLogins(null);
+            user.setLastFailedLoginAt(null);
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível zerar as senhas erradas do usuário {}: {}", user.getId(), e.getMessage());
+        }
+    }
+
+    private String dummyPasswordHash() {
+        if (dummyPasswordHash == null) {
+            dummyPasswordHash = passwordEncoder.encode("senha-inexistente");
+        }
+        return dummyPasswordHash;
+    }
+}
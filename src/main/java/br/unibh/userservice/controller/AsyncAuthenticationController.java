@@ -0,0 +1,48 @@
+package br.unibh.userservice.controller;
+
+import br.unibh.userservice.config.ClientIpResolver;
+import br.unibh.userservice.dto.*;
+import br.unibh.userservice.service.AsyncUserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versão assíncrona do {@link AuthenticationController}, ativa com {@code aws.dynamodb.async.enabled=true}.
+ */
+@RestController
+@ConditionalOnProperty(name = "aws.dynamodb.async.enabled", havingValue = "true")
+@RequestMapping("/auth")
+@CrossOrigin(origins = "*")
+@Tag(name ="Authentication", description = "Endpoints para usuário autenticar e registar")
+public class AsyncAuthenticationController {
+    private final AsyncUserService userService;
+    private final ClientIpResolver clientIpResolver;
+
+    public AsyncAuthenticationController(AsyncUserService userService, ClientIpResolver clientIpResolver) {
+        this.userService = userService;
+        this.clientIpResolver = clientIpResolver;
+    }
+
+    @PostMapping("/login")
+    @Operation(summary = "Autentica um usuário",
+            description = "Recebe as credenciais do usuário e retorna um token JWT se a autenticação for bem-sucedida. "
+                    + "Tentativas demais por login ou por IP recebem 429.")
+    public CompletableFuture<ResponseEntity<LoginResponseDTO>> login(@RequestBody @Valid AutheticationDTO request, HttpServletRequest httpRequest) {
+        return userService.autenticar(request, clientIpResolver.resolve(httpRequest)).thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping("/register")
+    @Operation(summary = "Registra um novo usuário" , description = "Recebe os dados do novo usuário, valida e cria uma nova conta de usuário.")
+    public CompletableFuture<ResponseEntity<UserResponseDTO>> createUser(@Valid @RequestBody CreateUserRequestDTO request) {
+        return userService.createUser(request)
+                .thenApply(responseDTO -> ResponseEntity.status(HttpStatus.CREATED).body(responseDTO));
+    }
+}
@@ -0,0 +1,86 @@
+package br.unibh.userservice.controller;
+
+import br.unibh.userservice.dto.*;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
+import br.unibh.userservice.service.AsyncUserService;
+import br.unibh.userservice.service.PaginatedResult;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Mesmos endpoints do {@link UserController}, servidos de forma assíncrona quando
+ * {@code aws.dynamodb.async.enabled=true}: a thread do Tomcat é liberada enquanto o DynamoDB responde.
+ */
+@RestController
+@ConditionalOnProperty(name = "aws.dynamodb.async.enabled", havingValue = "true")
+@RequestMapping("/users")
+@SecurityRequirement(name = "bearerAuth")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+@Tag(name ="Usuários", description = "Endpoints para gerenciamento de usuários")
+public class AsyncUserController {
+    private final AsyncUserService userService;
+
+    public AsyncUserController(AsyncUserService userService) {
+        this.userService = userService;
+    }
+
+    @Operation(summary = "Lista todos os usuários", description = "Retorna uma lista paginada de usuários cadastrados no sistema, opcionalmente filtrada por status e/ou papel.")
+    @GetMapping
+    public CompletableFuture<ResponseEntity<PaginatedResult<UserResponseDTO>>> getAllUsers(@RequestParam(required = false) String lastKey,
+                                                                          @RequestParam(defaultValue = "10") int limit,
+                                                                          @RequestParam(required = false) UserState status,
+                                                                          @RequestParam(required = false) UserRole role) {
+        return userService.listUsers(lastKey, limit, status, role).thenApply(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Busca usuários por uma lista de IDs", description = "Retorna os usuários encontrados na ordem dos IDs informados; IDs inexistentes são omitidos.")
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<List<UserResponseDTO>>> getUsersByIds(@RequestBody @Valid UserBatchRequestDTO request) {
+        return userService.findUsersByIds(request.ids()).thenApply(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Exclui um usuário por ID", description = "Exclui o usuário correspondente ao ID fornecido.")
+    @DeleteMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Void>> deleteUsersById(@PathVariable String id) {
+        return userService.deleteUser(id).thenApply(ignored -> ResponseEntity.noContent().<Void>build());
+    }
+
+    @Operation(summary = "Atualiza o status do usuário", description = "Atualiza o status (ACTIVE/INACTIVE/BLOCKED) do usuário correspondente ao ID fornecido.")
+    @PatchMapping("/{id}/state")
+    public CompletableFuture<ResponseEntity<UserUpdateResponseDTO>> updateUserStatus(@PathVariable String id, @RequestBody @Valid UpdateStatusDTO req) {
+        return userService.updateUserStatus(id, req).thenApply(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Atualiza o nome de usuário", description = "Atualiza o nome de usuário do usuário correspondente ao ID fornecido.")
+    @PatchMapping("/{id}/username")
+    public CompletableFuture<ResponseEntity<UserUpdateResponseDTO>> updateUsername(@PathVariable String id, @Valid @RequestBody UpdateUsernameDTO request) {
+        return userService.updateUsername(id, request).thenApply(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Atualiza o email do usuário", description = "Atualiza o email do usuário correspondente ao ID fornecido.")
+    @PatchMapping("/{id}/email")
+    public CompletableFuture<ResponseEntity<UserUpdateResponseDTO>> updateUserEmail(@PathVariable String id, @Valid @RequestBody UpdateEmailDTO request) {
+        return userService.updateEmail(id, request).thenApply(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Atualiza a senha do usuário", description = "Atualiza a senha do usuário correspondente ao ID fornecido.")
+    @PatchMapping("/{id}/password")
+    public CompletableFuture<ResponseEntity<UserUpdateResponseDTO>> updateUserPassword(@PathVariable String id, @Valid @RequestBody UpdatePasswordDTO request) {
+        return userService.updatePassword(id, request).thenApply(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Atualiza o papel do usuário", description = "Atualiza o papel (role) do usuário correspondente ao ID fornecido.")
+    @PatchMapping("/{id}/role")
+    public CompletableFuture<ResponseEntity<UserUpdateResponseDTO>> updateUserRole(@PathVariable String id, @Valid @RequestBody UpdateRoleDTO request) {
+        return userService.updateRole(id, request).thenApply(ResponseEntity::ok);
+    }
+}
@@ -1,5 +1,6 @@
 package br.unibh.userservice.controller;
 
+import br.unibh.userservice.config.ClientIpResolver;
 import br.unibh.userservice.config.TokenService;
 import br.unibh.userservice.dto.*;
 import br.unibh.userservice.entity.User;
@@ -7,7 +8,9 @@ import br.unibh.userservice.service.UserQueryService;
 import br.unibh.userservice.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -16,22 +19,26 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
+@ConditionalOnProperty(name = "aws.dynamodb.async.enabled", havingValue = "false", matchIfMissing = true)
 @RequestMapping("/auth")
 @CrossOrigin(origins = "*")
 @Tag(name ="Authentication", description = "Endpoints para usuário autenticar e registar")
 public class AuthenticationController {
     private final UserService userService;
+    private final ClientIpResolver clientIpResolver;
 
-    public AuthenticationController( UserService userService) {
+    public AuthenticationController( UserService userService, ClientIpResolver clientIpResolver) {
         this.userService = userService;
+        this.clientIpResolver = clientIpResolver;
     }
 
 
     @PostMapping("/login")
     @Operation(summary = "Autentica um usuário",
-            description = "Recebe as credenciais do usuário e retorna um token JWT se a autenticação for bem-sucedida.")
-    public ResponseEntity<LoginResponseDTO> login(@RequestBody @Valid AutheticationDTO request) {
-        LoginResponseDTO response = userService.autenticar(request);
+            description = "Recebe as credenciais do usuário e retorna um token JWT se a autenticação for bem-sucedida. "
+                    + "Tentativas demais por login ou por IP recebem 429.")
+    public ResponseEntity<LoginResponseDTO> login(@RequestBody @Valid AutheticationDTO request, HttpServletRequest httpRequest) {
+        LoginResponseDTO response = userService.autenticar(request, clientIpResolver.resolve(httpRequest));
         return ResponseEntity.ok(response);
     }
 
@@ -0,0 +1,43 @@
+package br.unibh.userservice.controller;
+
+import br.unibh.userservice.config.ClientIpResolver;
+import br.unibh.userservice.config.LoginThrottle;
+import br.unibh.userservice.dto.AvailabilityResponseDTO;
+import br.unibh.userservice.service.UserQueryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Consulta de disponibilidade para o formulário de cadastro, nos modos síncrono e assíncrono. Limitada por IP
+ * pelo {@link LoginThrottle}, já que responde se um username ou email existe.
+ */
+@RestController
+@RequestMapping("/auth")
+@CrossOrigin(origins = "*")
+@Tag(name ="Authentication", description = "Endpoints para usuário autenticar e registar")
+public class AvailabilityController {
+    private final UserQueryService userQueryService;
+    private final LoginThrottle loginThrottle;
+    private final ClientIpResolver clientIpResolver;
+
+    public AvailabilityController(UserQueryService userQueryService, LoginThrottle loginThrottle,
+                                  ClientIpResolver clientIpResolver) {
+        this.userQueryService = userQueryService;
+        this.loginThrottle = loginThrottle;
+        this.clientIpResolver = clientIpResolver;
+    }
+
+    @GetMapping("/availability")
+    @Operation(summary = "Verifica se username e email estão livres",
+            description = "Recebe username e/ou email e informa se cada um está disponível para cadastro. "
+                    + "Limitado por IP; acima do limite responde 429 com Retry-After.")
+    public ResponseEntity<AvailabilityResponseDTO> availability(@RequestParam(required = false) String username,
+                                                                @RequestParam(required = false) String email,
+                                                                HttpServletRequest httpRequest) {
+        loginThrottle.acquireAvailability(clientIpResolver.resolve(httpRequest));
+        return ResponseEntity.ok(userQueryService.availability(username, email));
+    }
+}
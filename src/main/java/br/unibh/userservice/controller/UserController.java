@@ -2,6 +2,8 @@ package br.unibh.userservice.controller;
 
 import br.unibh.userservice.dto.*;
 import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
 import br.unibh.userservice.service.PaginatedResult;
 import br.unibh.userservice.service.UserQueryService;
 import br.unibh.userservice.service.UserService;
@@ -9,12 +11,14 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
 @RestController
+@ConditionalOnProperty(name = "aws.dynamodb.async.enabled", havingValue = "false", matchIfMissing = true)
 @RequestMapping("/users")
 @SecurityRequirement(name = "bearerAuth")
 @CrossOrigin(origins = "*", allowedHeaders = "*")
@@ -26,12 +30,14 @@ public class UserController {
         this.userService = userService;
     }
 
-    @Operation(summary = "Lista todos os usuários", description = "Retorna uma lista paginada de usuários cadastrados no sistema.")
+    @Operation(summary = "Lista todos os usuários", description = "Retorna uma lista paginada de usuários cadastrados no sistema, opcionalmente filtrada por status e/ou papel.")
     @GetMapping
     public ResponseEntity<PaginatedResult<UserResponseDTO>> getAllUsers(@RequestParam(required = false) String lastKey,
-                                                       @RequestParam(defaultValue = "10") int limit
+                                                       @RequestParam(defaultValue = "10") int limit,
+                                                       @RequestParam(required = false) UserState status,
+                                                       @RequestParam(required = false) UserRole role
                                                   ) {
-        PaginatedResult<UserResponseDTO> paginatedResult = userService.listUsers(lastKey, limit);
+        PaginatedResult<UserResponseDTO> paginatedResult = userService.listUsers(lastKey, limit, status, role);
 
         return ResponseEntity.ok(paginatedResult);
     }
@@ -44,6 +50,12 @@ public class UserController {
 //        return ResponseEntity.ok(responseDTO);
 //    }
 
+    @Operation(summary = "Busca usuários por uma lista de IDs", description = "Retorna os usuários encontrados na ordem dos IDs informados; IDs inexistentes são omitidos.")
+    @PostMapping("/batch")
+    public ResponseEntity<List<UserResponseDTO>> getUsersByIds(@RequestBody @Valid UserBatchRequestDTO request) {
+        return ResponseEntity.ok(userService.findUsersByIds(request.ids()));
+    }
+
     @Operation(summary = "Exclui um usuário por ID", description = "Exclui o usuário correspondente ao ID fornecido.")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteUsersById(@PathVariable String id) {
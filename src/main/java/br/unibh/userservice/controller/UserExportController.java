@@ -0,0 +1,57 @@
+package br.unibh.userservice.controller;
+
+import br.unibh.userservice.service.UserExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/users")
+@SecurityRequirement(name = "bearerAuth")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+@Tag(name ="Usuários", description = "Endpoints para gerenciamento de usuários")
+public class UserExportController {
+    private final UserExportService userExportService;
+
+    public UserExportController(UserExportService userExportService) {
+        this.userExportService = userExportService;
+    }
+
+    /**
+     * Escreve direto no stream do servlet; com {@code Accept-Encoding: gzip} a saída é comprimida com
+     * sync flush, para que cada checkpoint chegue ao cliente assim que é escrito.
+     */
+    @Operation(summary = "Exporta todos os usuários",
+            description = "Devolve um NDJSON com todos os usuários, lido com scan paralelo, intercalado com linhas de checkpoint. "
+                    + "Envie o último checkpoint em 'resume' para retomar; checkpoints alterados recebem 400. "
+                    + "O status 200 sai com a primeira linha: se a leitura falhar no meio, a resposta termina com uma linha "
+                    + "{\"error\": \"...\", \"checkpoint\": \"...\"} em vez de mudar o status. Só a resposta sem essa linha está completa.")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportUsers(@RequestParam(defaultValue = "4") int segments,
+                            @RequestParam(required = false) String resume,
+                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                            HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            GZIPOutputStream gzip = new GZIPOutputStream(response.getOutputStream(), true);
+            userExportService.export(segments, resume, gzip);
+            gzip.finish();
+        } else {
+            OutputStream out = response.getOutputStream();
+            userExportService.export(segments, resume, out);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package br.unibh.userservice.controller;
+
+import br.unibh.userservice.service.UserImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/users")
+@SecurityRequirement(name = "bearerAuth")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+@Tag(name ="Usuários", description = "Endpoints para gerenciamento de usuários")
+public class UserImportController {
+    private static final String TEXT_CSV = "text/csv";
+
+    private final UserImportService userImportService;
+
+    public UserImportController(UserImportService userImportService) {
+        this.userImportService = userImportService;
+    }
+
+    /**
+     * Lê o corpo e escreve o relatório direto nos streams do servlet, sem passar por conversores que
+     * guardariam o arquivo ou o relatório inteiros em memória.
+     */
+    @Operation(summary = "Importa usuários em lote",
+            description = "Recebe NDJSON (application/x-ndjson) ou CSV (text/csv, com cabeçalho username,email,password) e devolve um relatório NDJSON com o resultado de cada linha.")
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV}, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean csv = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType(TEXT_CSV));
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        userImportService.importUsers(request.getInputStream(), csv, response.getOutputStream());
+    }
+}
@@ -0,0 +1,10 @@
+package br.unibh.userservice.dto;
+
+/**
+ * Disponibilidade de username e email para o formulário de cadastro; {@code null} para o que não foi consultado.
+ */
+public record AvailabilityResponseDTO(
+        Boolean usernameAvailable,
+        Boolean emailAvailable
+) {
+}
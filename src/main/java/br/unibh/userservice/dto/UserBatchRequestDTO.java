@@ -0,0 +1,13 @@
+package br.unibh.userservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record UserBatchRequestDTO(
+        @NotEmpty(message = "Informe ao menos um id.")
+        @Size(max = 1000, message = "No máximo 1000 ids por requisição.")
+        List<String> ids
+) {
+}
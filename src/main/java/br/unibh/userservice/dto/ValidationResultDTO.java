@@ -1,7 +0,0 @@
-package br.unibh.userservice.dto;
-
-public record ValidationResultDTO(
-        boolean valid,
-        String message
-) {
-}
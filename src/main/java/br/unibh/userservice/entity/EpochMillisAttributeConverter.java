@@ -0,0 +1,47 @@
+package br.unibh.userservice.entity;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import software.amazon.awssdk.enhanced.dynamodb.AttributeConverter;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeValueType;
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Grava um {@link LocalDateTime} como número de milissegundos (13 dígitos, cerca de 8 bytes no item) em vez da
+ * string ISO de até 29 caracteres do conversor padrão. O horário é tratado como UTC só para virar número, então
+ * o valor lido é o mesmo que foi gravado, truncado em milissegundos.
+ * <p>
+ * Itens gravados antes deste conversor têm a string ISO, que continua sendo lida; o atributo passa a número na
+ * próxima gravação do usuário.
+ */
+public class EpochMillisAttributeConverter implements AttributeConverter<LocalDateTime> {
+
+    @Override
+    public AttributeValue transformFrom(LocalDateTime input) {
+        return AttributeValue.fromN(Long.toString(input.toInstant(ZoneOffset.UTC).toEpochMilli()));
+    }
+
+    @Override
+    public LocalDateTime transformTo(AttributeValue input) {
+        if (input.n() != null) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(input.n())), ZoneOffset.UTC);
+        }
+        if (input.s() != null) {
+            return LocalDateTime.parse(input.s());
+        }
+        return null;
+    }
+
+    @Override
+    public EnhancedType<LocalDateTime> type() {
+        return EnhancedType.of(LocalDateTime.class);
+    }
+
+    @Override
+    public AttributeValueType attributeValueType() {
+        return AttributeValueType.N;
+    }
+}
@@ -0,0 +1,152 @@
+package br.unibh.userservice.entity;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeConverter;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeValueType;
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Grava o histórico de senhas num único atributo binário em vez de uma lista de strings de 60 caracteres.
+ * <p>
+ * Cada hash BCrypt ({@code $2a$10$} + 22 caracteres de salt + 31 de hash, no base64 do BCrypt) vira 41 bytes:
+ * a versão, o custo, os 16 bytes do salt e os 23 do hash. A ordem é preservada, do mais antigo para o mais
+ * recente, o que um conjunto binário ({@code BS}) não garantiria. Um valor que não seja um hash BCrypt canônico
+ * é gravado como texto, com o marcador {@code 0} e o tamanho em dois bytes.
+ * <p>
+ * Itens antigos, com a lista de strings, continuam sendo lidos e passam ao formato binário na próxima gravação.
+ */
+public class PasswordHistoryAttributeConverter implements AttributeConverter<List<String>> {
+
+    private static final String ALPHABET = "./ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final int BCRYPT_LENGTH = 60;
+    private static final int SALT_CHARS = 22;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_CHARS = 31;
+    private static final int HASH_BYTES = 23;
+    private static final int COMPACT_BYTES = 2 + SALT_BYTES + HASH_BYTES;
+    private static final int RAW_MARKER = 0;
+
+    @Override
+    public AttributeValue transformFrom(List<String> input) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(input.size() * COMPACT_BYTES);
+        for (String hash : input) {
+            byte[] compact = compact(hash);
+            if (compact != null) {
+                out.writeBytes(compact);
+            } else {
+                byte[] raw = hash.getBytes(StandardCharsets.UTF_8);
+                out.write(RAW_MARKER);
+                out.write(raw.length >> 8);
+                out.write(raw.length);
+                out.writeBytes(raw);
+            }
+        }
+        return AttributeValue.fromB(SdkBytes.fromByteArray(out.toByteArray()));
+    }
+
+    @Override
+    public List<String> transformTo(AttributeValue input) {
+        if (input.hasL()) {
+            return new ArrayList<>(input.l().stream().map(AttributeValue::s).toList());
+        }
+        List<String> hashes = new ArrayList<>();
+        if (input.b() == null) {
+            return hashes;
+        }
+        byte[] data = input.b().asByteArray();
+        int position = 0;
+        while (position < data.length) {
+            if (data[position] == RAW_MARKER) {
+                int length = (data[position + 1] & 0xff) << 8 | data[position + 2] & 0xff;
+                hashes.add(new String(data, position + 3, length, StandardCharsets.UTF_8));
+                position += 3 + length;
+            } else {
+                hashes.add(expand(data, position));
+                position += COMPACT_BYTES;
+            }
+        }
+        return hashes;
+    }
+
+    @Override
+    public EnhancedType<List<String>> type() {
+        return EnhancedType.listOf(String.class);
+    }
+
+    @Override
+    public AttributeValueType attributeValueType() {
+        return AttributeValueType.B;
+    }
+
+    /** Forma binária do hash, ou {@code null} se ele não voltar exatamente igual ao ser expandido. */
+    static byte[] compact(String hash) {
+        if (hash == null || hash.length() != BCRYPT_LENGTH || !hash.startsWith("$2")
+                || hash.charAt(2) < 'a' || hash.charAt(2) > 'z' || hash.charAt(3) != '$' || hash.charAt(6) != '$'
+                || !Character.isDigit(hash.charAt(4)) || !Character.isDigit(hash.charAt(5))) {
+            return null;
+        }
+        byte[] compact = new byte[COMPACT_BYTES];
+        compact[0] = (byte) hash.charAt(2);
+        compact[1] = (byte) Integer.parseInt(hash.substring(4, 6));
+        int saltStart = 7;
+        int hashStart = saltStart + SALT_CHARS;
+        if (!decode(hash, saltStart, hashStart, compact, 2)
+                || !decode(hash, hashStart, BCRYPT_LENGTH, compact, 2 + SALT_BYTES)) {
+            return null;
+        }
+        // Bits de sobra diferentes de zero não voltariam iguais; nesse caso o hash fica como texto
+        return expand(compact, 0).equals(hash) ? compact : null;
+    }
+
+    static String expand(byte[] data, int offset) {
+        StringBuilder hash = new StringBuilder(BCRYPT_LENGTH)
+                .append("$2").append((char) data[offset]).append('$');
+        int cost = data[offset + 1];
+        hash.append(cost < 10 ? "0" : "").append(cost).append('$');
+        encode(data, offset + 2, SALT_BYTES, hash);
+        encode(data, offset + 2 + SALT_BYTES, HASH_BYTES, hash);
+        return hash.toString();
+    }
+
+    private static boolean decode(String text, int from, int to, byte[] out, int offset) {
+        int buffer = 0;
+        int bits = 0;
+        for (int i = from; i < to; i++) {
+            int value = ALPHABET.indexOf(text.charAt(i));
+            if (value < 0) {
+                return false;
+            }
+            buffer = buffer << 6 | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                out[offset++] = (byte) (buffer >> bits);
+                buffer &= (1 << bits) - 1;
+            }
+        }
+        return true;
+    }
+
+    private static void encode(byte[] data, int offset, int length, StringBuilder out) {
+        int buffer = 0;
+        int bits = 0;
+        for (int i = offset; i < offset + length; i++) {
+            buffer = buffer << 8 | data[i] & 0xff;
+            bits += 8;
+            while (bits >= 6) {
+                bits -= 6;
+                out.append(ALPHABET.charAt(buffer >> bits & 0x3f));
+            }
+            buffer &= (1 << bits) - 1;
+        }
+        if (bits > 0) {
+            out.append(ALPHABET.charAt(buffer << (6 - bits) & 0x3f));
+        }
+    }
+}
@@ -11,27 +11,46 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
-import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
-import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
 
-@DynamoDbBean
+/**
+ * Usuário gravado na tabela; o mapeamento para o DynamoDB está em {@link UserTableSchema#USER}.
+ */
 @Getter
 @Setter
 @NoArgsConstructor
 public class User implements UserDetails {
+    public static final String USERNAME_INDEX = "username-index";
+    public static final String EMAIL_INDEX = "email-index";
+    public static final String STATUS_INDEX = "status-index";
+    public static final String ROLE_INDEX = "role-index";
+
     private String id;
     private String username;
     private String email;
     private String password;
     private UserRole role;
     private UserState status;
+    /** Ordena as listagens por status e por papel; as reservas de username/email não têm este atributo. */
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    /** Hashes anteriores, do mais antigo para o mais recente. */
     private List<String> passwordHistory = new ArrayList<>();
+    private Long tokenVersion;
+    /**
+     * Senhas erradas seguidas, somadas com {@code ADD} no DynamoDB para valer em todas as réplicas; some no
+     * próximo login bem-sucedido. Não passa pela {@link #version}: contar uma falha não invalida uma leitura.
+     */
+    private Long failedLogins;
+    private LocalDateTime lastFailedLoginAt;
+    /**
+     * Versão para concorrência otimista: cada gravação exige a versão lida e a incrementa.
+     * Nula em usuários ainda não gravados ou gravados antes deste atributo.
+     */
+    private Long version;
 
-    @DynamoDbPartitionKey
-    public String getId() {
-        return id;
+    @Override
+    public String getUsername() {
+        return username;
     }
 
     @Override
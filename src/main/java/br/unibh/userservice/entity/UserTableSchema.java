@@ -0,0 +1,136 @@
+package br.unibh.userservice.entity;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondarySortKey;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.extensions.VersionedRecordExtension;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+/**
+ * Schemas da tabela de usuários, escritos à mão com {@link StaticTableSchema}.
+ * <p>
+ * O {@code TableSchema.fromBean} descobre os atributos por reflexão e gera um acessor por {@code LambdaMetafactory}
+ * para cada getter e setter, o que custa centenas de milissegundos na subida e era feito uma vez por repositório.
+ * Aqui os acessores são referências de método comuns e cada schema é montado uma única vez, compartilhado pela
+ * configuração, pelos repositórios e pelo inicializador da tabela.
+ * <p>
+ * Um atributo novo na entidade só é gravado depois de declarado aqui.
+ */
+public final class UserTableSchema {
+
+    private static final List<String> LISTING_INDEXES = List.of(User.STATUS_INDEX, User.ROLE_INDEX);
+
+    /**
+     * Usuário completo. {@code updatedAt} e {@code lastFailedLoginAt} são gravados em milissegundos e {@code passwordHistory} em binário; já
+     * {@code createdAt}, {@code status} e {@code role} ficam em texto por serem chaves dos índices de listagem.
+     */
+    public static final TableSchema<User> USER = StaticTableSchema.builder(User.class)
+            .newItemSupplier(User::new)
+            .addAttribute(String.class, a -> a.name("id")
+                    .getter(User::getId)
+                    .setter(User::setId)
+                    .tags(primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name("username")
+                    .getter(User::getUsername)
+                    .setter(User::setUsername)
+                    .tags(secondaryPartitionKey(User.USERNAME_INDEX)))
+            .addAttribute(String.class, a -> a.name("email")
+                    .getter(User::getEmail)
+                    .setter(User::setEmail)
+                    .tags(secondaryPartitionKey(User.EMAIL_INDEX)))
+            .addAttribute(String.class, a -> a.name("password")
+                    .getter(User::getPassword)
+                    .setter(User::setPassword))
+            .addAttribute(UserRole.class, a -> a.name("role")
+                    .getter(User::getRole)
+                    .setter(User::setRole)
+                    .tags(secondaryPartitionKey(User.ROLE_INDEX)))
+            .addAttribute(UserState.class, a -> a.name("status")
+                    .getter(User::getStatus)
+                    .setter(User::setStatus)
+                    .tags(secondaryPartitionKey(User.STATUS_INDEX)))
+            .addAttribute(LocalDateTime.class, a -> a.name("createdAt")
+                    .getter(User::getCreatedAt)
+                    .setter(User::setCreatedAt)
+                    .tags(secondarySortKey(LISTING_INDEXES)))
+            .addAttribute(LocalDateTime.class, a -> a.name("updatedAt")
+                    .getter(User::getUpdatedAt)
+                    .setter(User::setUpdatedAt)
+                    .attributeConverter(new EpochMillisAttributeConverter()))
+            .addAttribute(EnhancedType.listOf(String.class), a -> a.name("passwordHistory")
+                    .getter(User::getPasswordHistory)
+                    .setter(User::setPasswordHistory)
+                    .attributeConverter(new PasswordHistoryAttributeConverter()))
+            .addAttribute(Long.class, a -> a.name("tokenVersion")
+                    .getter(User::getTokenVersion)
+                    .setter(User::setTokenVersion))
+            .addAttribute(Long.class, a -> a.name("failedLogins")
+                    .getter(User::getFailedLogins)
+                    .setter(User::setFailedLogins))
+            .addAttribute(LocalDateTime.class, a -> a.name("lastFailedLoginAt")
+                    .getter(User::getLastFailedLoginAt)
+                    .setter(User::setLastFailedLoginAt)
+                    .attributeConverter(new EpochMillisAttributeConverter()))
+            .addAttribute(Long.class, a -> a.name("version")
+                    .getter(User::getVersion)
+                    .setter(User::setVersion)
+                    .tags(VersionedRecordExtension.AttributeTags.versionAttribute()))
+            .build();
+
+    /** Reserva de username/email: só a chave e o id do dono. */
+    public static final TableSchema<UserUniqueKey> UNIQUE_KEY = StaticTableSchema.builder(UserUniqueKey.class)
+            .newItemSupplier(UserUniqueKey::new)
+            .addAttribute(String.class, a -> a.name("id")
+                    .getter(UserUniqueKey::getId)
+                    .setter(UserUniqueKey::setId)
+                    .tags(primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name("userId")
+                    .getter(UserUniqueKey::getUserId)
+                    .setter(UserUniqueKey::setUserId))
+            .build();
+
+    /** Modelo de leitura das listagens, com as chaves dos índices de status e papel. */
+    public static final TableSchema<UserView> VIEW = StaticTableSchema.builder(UserView.class)
+            .newItemSupplier(UserView::new)
+            .addAttribute(String.class, a -> a.name("id")
+                    .getter(UserView::getId)
+                    .setter(UserView::setId)
+                    .tags(primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name("username")
+                    .getter(UserView::getUsername)
+                    .setter(UserView::setUsername))
+            .addAttribute(String.class, a -> a.name("email")
+                    .getter(UserView::getEmail)
+                    .setter(UserView::setEmail))
+            .addAttribute(UserState.class, a -> a.name("status")
+                    .getter(UserView::getStatus)
+                    .setter(UserView::setStatus)
+                    .tags(secondaryPartitionKey(User.STATUS_INDEX)))
+            .addAttribute(UserRole.class, a -> a.name("role")
+                    .getter(UserView::getRole)
+                    .setter(UserView::setRole)
+                    .tags(secondaryPartitionKey(User.ROLE_INDEX)))
+            .addAttribute(LocalDateTime.class, a -> a.name("updatedAt")
+                    .getter(UserView::getUpdatedAt)
+                    .setter(UserView::setUpdatedAt)
+                    .attributeConverter(new EpochMillisAttributeConverter()))
+            .addAttribute(LocalDateTime.class, a -> a.name("createdAt")
+                    .getter(UserView::getCreatedAt)
+                    .setter(UserView::setCreatedAt)
+                    .tags(secondarySortKey(LISTING_INDEXES)))
+            .build();
+
+    /** Cópia independente do usuário, feita pelo próprio schema: inclui todo atributo gravado. */
+    public static User copyOf(User user) {
+        return USER.mapToItem(USER.itemToMap(user, true));
+    }
+
+    private UserTableSchema() {
+    }
+}
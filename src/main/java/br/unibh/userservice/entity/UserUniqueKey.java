@@ -0,0 +1,47 @@
+package br.unibh.userservice.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Item de reserva gravado na mesma tabela dos usuários ({@code USERNAME#x}, {@code EMAIL#y}).
+ * Como a chave de partição é única, um {@code attribute_not_exists(id)} na reserva garante
+ * a unicidade de username e email dentro da mesma transação que grava o usuário.
+ * Mapeado por {@link UserTableSchema#UNIQUE_KEY}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class UserUniqueKey {
+    public static final String USERNAME_PREFIX = "USERNAME#";
+    public static final String EMAIL_PREFIX = "EMAIL#";
+
+    private String id;
+    private String userId;
+
+    public UserUniqueKey(String id, String userId) {
+        this.id = id;
+        this.userId = userId;
+    }
+
+    public static UserUniqueKey forUsername(String username, String userId) {
+        return new UserUniqueKey(usernameKey(username), userId);
+    }
+
+    public static UserUniqueKey forEmail(String email, String userId) {
+        return new UserUniqueKey(emailKey(email), userId);
+    }
+
+    public static String usernameKey(String username) {
+        return USERNAME_PREFIX + username;
+    }
+
+    public static String emailKey(String email) {
+        return EMAIL_PREFIX + email;
+    }
+
+    public static boolean isUniqueKeyId(String id) {
+        return id != null && (id.startsWith(USERNAME_PREFIX) || id.startsWith(EMAIL_PREFIX));
+    }
+}
@@ -0,0 +1,31 @@
+package br.unibh.userservice.entity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Modelo de leitura do usuário com só os atributos do {@code UserResponseDTO}. As listagens e buscas que
+ * devolvem esse DTO leem com {@code ProjectionExpression} restrita a {@link #ATTRIBUTES}, então o hash de senha
+ * e o histórico de senhas não saem do DynamoDB.
+ * <p>
+ * Mapeia o mesmo item de {@link User}, com o schema {@link UserTableSchema#VIEW}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class UserView {
+    public static final List<String> ATTRIBUTES = List.of("id", "username", "email", "status", "updatedAt", "role");
+
+    private String id;
+    private String username;
+    private String email;
+    private UserState status;
+    private UserRole role;
+    private LocalDateTime updatedAt;
+    /** Só a chave de ordenação dos índices; não faz parte da projeção. */
+    private LocalDateTime createdAt;
+}
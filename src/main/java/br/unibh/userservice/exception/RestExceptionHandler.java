@@ -1,6 +1,7 @@
 package br.unibh.userservice.exception;
 
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -126,6 +127,13 @@ public class RestExceptionHandler {
         return new ResponseEntity<>(errorBody, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(UserExceptions.ConcurrentUpdateException.class)
+    public ResponseEntity<Map<String,String>> handleConcurrentUpdate(UserExceptions.ConcurrentUpdateException ex) {
+        Map<String, String> errorBody = new HashMap<>();
+        errorBody.put("error", ex.getMessage());
+        return new ResponseEntity<>(errorBody, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(TokenExceptions.FailedGenerationTokenException.class)
     public ResponseEntity<Map<String,String>> handleTokenGenerationException(TokenExceptions.FailedGenerationTokenException ex) {
         Map<String, String> errorBody = new HashMap<>();
@@ -142,4 +150,34 @@ public class RestExceptionHandler {
         return new ResponseEntity<>(errorBody, HttpStatus.UNAUTHORIZED);
     }
 
+    @ExceptionHandler({ServiceExceptions.InvalidCursorException.class,
+            ServiceExceptions.InvalidRequestException.class})
+    public ResponseEntity<Map<String,String>> handleInvalidRequest(RuntimeException ex) {
+        Map<String, String> errorBody = new HashMap<>();
+        errorBody.put("error", ex.getMessage());
+        return new ResponseEntity<>(errorBody, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ServiceExceptions.ServiceOverloadedException.class)
+    public ResponseEntity<Map<String,String>> handleServiceOverloaded(ServiceExceptions.ServiceOverloadedException ex) {
+        Map<String, String> errorBody = new HashMap<>();
+        errorBody.put("error", "Serviço indisponível");
+        errorBody.put("message", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorBody);
+    }
+
+    @ExceptionHandler(ServiceExceptions.TooManyRequestsException.class)
+    public ResponseEntity<Map<String,String>> handleTooManyRequests(ServiceExceptions.TooManyRequestsException ex) {
+        Map<String, String> errorBody = new HashMap<>();
+        errorBody.put("error", "Muitas tentativas");
+        errorBody.put("message", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(errorBody);
+    }
+
 }
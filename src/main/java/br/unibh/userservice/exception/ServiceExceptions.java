@@ -0,0 +1,36 @@
+package br.unibh.userservice.exception;
+
+public class ServiceExceptions {
+
+    public static class ServiceOverloadedException extends RuntimeException {
+        public ServiceOverloadedException(String message) {
+            super(message);
+        }
+    }
+
+    public static class InvalidCursorException extends RuntimeException {
+        public InvalidCursorException(String message) {
+            super(message);
+        }
+    }
+
+    public static class InvalidRequestException extends RuntimeException {
+        public InvalidRequestException(String message) {
+            super(message);
+        }
+    }
+
+    /** Tentativas demais; {@code retryAfterSeconds} vai no cabeçalho {@code Retry-After} da resposta 429. */
+    public static class TooManyRequestsException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        public TooManyRequestsException(String message, long retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
@@ -41,6 +41,12 @@ public class UserExceptions {
         }
     }
 
+    public static class ConcurrentUpdateException extends RuntimeException {
+        public ConcurrentUpdateException(String message) {
+            super(message);
+        }
+    }
+
     @ResponseStatus(HttpStatus.UNAUTHORIZED)
     public static class PasswordOrLoginInvalidException extends RuntimeException {
         public PasswordOrLoginInvalidException(String message) {
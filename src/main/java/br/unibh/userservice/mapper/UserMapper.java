@@ -6,6 +6,7 @@ import br.unibh.userservice.dto.UserUpdateResponseDTO;
 import br.unibh.userservice.entity.User;
 import br.unibh.userservice.entity.UserRole;
 import br.unibh.userservice.entity.UserState;
+import br.unibh.userservice.entity.UserView;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -29,6 +30,8 @@ public interface UserMapper {
 
     UserResponseDTO toResponseDto(User user);
 
+    UserResponseDTO toResponseDto(UserView user);
+
     @Mapping(target = "token", source = "token")
     @Mapping(target = "id", source = "user.id")
     @Mapping(target = "username", source = "user.username")
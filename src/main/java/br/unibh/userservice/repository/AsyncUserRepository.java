@@ -0,0 +1,83 @@
+package br.unibh.userservice.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
+import br.unibh.userservice.entity.UserView;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Versão não bloqueante de {@link UserRepository}: as mesmas operações, com o resultado entregue em um
+ * {@link CompletableFuture}. As falhas chegam no futuro com as mesmas exceções de domínio da versão síncrona.
+ */
+public interface AsyncUserRepository {
+
+    /**
+     * @see UserRepository#create(User)
+     */
+    CompletableFuture<User> create(User user);
+
+    /**
+     * @see UserRepository#updateFields(String, Map, boolean)
+     */
+    CompletableFuture<User> updateFields(String id, Map<UserField, Object> changes, boolean revokeTokens);
+
+    /**
+     * @see UserRepository#updateFields(User, Map, boolean)
+     */
+    CompletableFuture<User> updateFields(User current, Map<UserField, Object> changes, boolean revokeTokens);
+
+    /**
+     * @see UserRepository#updateUniqueField(User, UserField, String, boolean)
+     */
+    CompletableFuture<User> updateUniqueField(User user, UserField field, String newValue, boolean revokeTokens);
+
+    /**
+     * @see UserRepository#recordFailedLogin(User, LocalDateTime)
+     */
+    CompletableFuture<Long> recordFailedLogin(User user, LocalDateTime windowStart);
+
+    /**
+     * @see UserRepository#clearFailedLogins(String)
+     */
+    CompletableFuture<Void> clearFailedLogins(String id);
+
+    CompletableFuture<Optional<User>> findById(String id);
+
+    /**
+     * @see UserRepository#findByIdConsistent(String)
+     */
+    CompletableFuture<Optional<User>> findByIdConsistent(String id);
+
+    CompletableFuture<Optional<User>> findByUsername(String username);
+
+    CompletableFuture<Optional<User>> findByEmail(String email);
+
+    /**
+     * @see UserRepository#findAllByIds(Collection)
+     */
+    CompletableFuture<List<UserView>> findAllByIds(Collection<String> ids);
+
+    /**
+     * @see UserRepository#findPage(Map, int)
+     */
+    CompletableFuture<Page<UserView>> findPage(Map<String, AttributeValue> exclusiveStartKey, int limit);
+
+    /**
+     * @see UserRepository#findPageByStatusOrRole(UserState, UserRole, Map, int)
+     */
+    CompletableFuture<Page<UserView>> findPageByStatusOrRole(UserState status, UserRole role, Map<String, AttributeValue> exclusiveStartKey, int limit);
+
+    /**
+     * @see UserRepository#delete(User)
+     */
+    CompletableFuture<Void> delete(User user);
+}
@@ -0,0 +1,74 @@
+package br.unibh.userservice.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sem locks: os bits ficam num {@link AtomicLongArray} e cada inclusão liga os bits com CAS,
+ * então leituras e inclusões concorrentes nunca esperam umas pelas outras. Não tem remoção: um valor incluído
+ * responde "talvez" para sempre, e um valor nunca incluído responde "não" com certeza.
+ * <p>
+ * As {@code k} posições vêm de um único hash de 64 bits dividido em duas metades ({@code h1 + i * h2}, de
+ * Kirsch e Mitzenmacher).
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    /**
+     * @param expectedItems     Quantidade de valores prevista.
+     * @param falsePositiveRate Taxa de falso positivo aceita com essa quantidade (ex.: 0.01).
+     */
+    BloomFilter(long expectedItems, double falsePositiveRate) {
+        long n = Math.max(1, expectedItems);
+        long m = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        this.words = new AtomicLongArray(Math.toIntExact((m + 63) / 64));
+        this.bits = (long) words.length() * 64;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        long h1 = hash & 0xffffffffL;
+        long h2 = hash >>> 32;
+        for (int i = 1; i <= hashes; i++) {
+            long bit = (h1 + i * h2) % bits;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        long h1 = hash & 0xffffffffL;
+        long h2 = hash >>> 32;
+        for (int i = 1; i <= hashes; i++) {
+            long bit = (h1 + i * h2) % bits;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** FNV-1a de 64 bits sobre os bytes UTF-8, com a finalização do MurmurHash3 para espalhar os bits. */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,390 @@
+package br.unibh.userservice.repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
+import br.unibh.userservice.entity.UserTableSchema;
+import br.unibh.userservice.entity.UserView;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Cache de leitura na frente do {@link DynamoDbUserRepository} para {@code findById}, {@code findByUsername}
+ * e {@code findByEmail}, que são chamados em quase toda operação sobre um usuário. Desligado por padrão
+ * ({@code users.cache.enabled}).
+ * <p>
+ * O usuário fica guardado uma vez, pelo id, como o item codificado pelo {@link UserTableSchema#USER}; cada
+ * leitura devolve uma instância nova, então alterações feitas por quem chamou não vazam para o cache. Username
+ * e email (normalizados) apontam para o id, e só contam como acerto se o usuário guardado ainda tiver aquele
+ * username/email. Quando a entrada do id sai do cache, as duas entradas que apontam para ela saem junto.
+ * <p>
+ * Toda gravação de um usuário existente invalida o id nesta réplica e o anuncia pelo
+ * {@link UserCacheInvalidationBroadcaster}. O id fica marcado por {@code users.cache.staleReadWindowMillis}:
+ * uma leitura que termina nessa janela não é guardada, porque pode ter começado antes da gravação ou ter lido
+ * uma réplica do DynamoDB (ou um índice) ainda sem ela. Cadastros não invalidam nada, já que ausências não são
+ * guardadas.
+ * <p>
+ * Com o {@link LoopbackUserCacheInvalidationBroadcaster}, as outras réplicas só veem a gravação quando a entrada
+ * expira, e a aplicação avisa no log ao subir. Por isso autenticação e autorização nunca decidem com o cache: o
+ * login vai ao índice com {@link #findByUsernameUncached}/{@link #findByEmailUncached}, e o token com o id do
+ * usuário, a {@link #findByIdConsistent}.
+ * <p>
+ * Listagens, a busca em lote de {@link UserView}, as verificações de reserva e os {@code existsBy*} vão direto ao
+ * DynamoDB.
+ * Métricas: {@code users.cache.byId}, {@code users.cache.byUsername} e {@code users.cache.byEmail} (acertos,
+ * falhas, evicções e tamanho) e o contador {@code users.cache.invalidations} (invalidações recebidas pelo
+ * broadcaster).
+ */
+@Slf4j
+@Primary
+@Repository
+@ConditionalOnProperty(name = "users.cache.enabled", havingValue = "true")
+public class CachingUserRepository implements UserRepository {
+
+    private final UserRepository delegate;
+    private final UserCacheInvalidationBroadcaster broadcaster;
+    private final Cache<String, CachedUser> byId;
+    private final Cache<String, String> idByUsername;
+    private final Cache<String, String> idByEmail;
+    private final Cache<String, Boolean> recentlyInvalidated;
+    private final Counter invalidations;
+
+    public CachingUserRepository(@Qualifier("dynamoDbUserRepository") UserRepository delegate,
+                                 UserCacheInvalidationBroadcaster broadcaster,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${users.cache.maximumSize:10000}") long maximumSize,
+                                 @Value("${users.cache.ttlMillis:30000}") long ttlMillis,
+                                 @Value("${users.cache.staleReadWindowMillis:1000}") long staleReadWindowMillis) {
+        this.delegate = delegate;
+        this.broadcaster = broadcaster;
+        Duration ttl = Duration.ofMillis(ttlMillis);
+        this.idByUsername = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idByEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .<String, CachedUser>evictionListener((id, cached, cause) -> unlink(id, cached))
+                .build();
+        this.recentlyInvalidated = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(staleReadWindowMillis))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "users.cache.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, idByUsername, "users.cache.byUsername");
+        CaffeineCacheMetrics.monitor(meterRegistry, idByEmail, "users.cache.byEmail");
+        this.invalidations = meterRegistry.counter("users.cache.invalidations");
+        broadcaster.subscribe(this::onInvalidation);
+        if (broadcaster instanceof LoopbackUserCacheInvalidationBroadcaster) {
+            log.warn("Cache de usuários ligado sem broadcaster distribuído: com mais de uma réplica, as outras veem "
+                    + "as gravações só depois de {} ms.", ttlMillis);
+        }
+    }
+
+    @Override
+    public Optional<User> findById(String id) {
+        Optional<User> cached = findCachedById(id);
+        return cached.isPresent() ? cached : load(() -> delegate.findById(id));
+    }
+
+    /** Nunca responde do cache. */
+    @Override
+    public Optional<User> findByIdConsistent(String id) {
+        return delegate.findByIdConsistent(id);
+    }
+
+    @Override
+    public Optional<User> findCachedById(String id) {
+        CachedUser cached = id != null ? byId.getIfPresent(id) : null;
+        return cached != null ? Optional.of(cached.toUser()) : Optional.empty();
+    }
+
+    /** Os ids já em cache não vão ao DynamoDB; os demais são lidos num só lote e guardados. */
+    @Override
+    public Map<String, User> findUsersByIds(Collection<String> ids) {
+        Map<String, User> usersById = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            // asMap().get não conta nas estatísticas: quem chama já contou a falha em findCachedById
+            CachedUser cached = id != null ? byId.asMap().get(id) : null;
+            if (cached != null) {
+                usersById.put(id, cached.toUser());
+            } else if (id != null) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            delegate.findUsersByIds(missing).forEach((id, user) -> {
+                put(user);
+                usersById.put(id, user);
+            });
+        }
+        return usersById;
+    }
+
+    @Override
+    public Optional<User> findByUsernameUncached(String username) {
+        return delegate.findByUsername(username);
+    }
+
+    @Override
+    public Optional<User> findByEmailUncached(String email) {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return findByUniqueKey(idByUsername, username, CachedUser::username, () -> delegate.findByUsername(username));
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return findByUniqueKey(idByEmail, email, CachedUser::email, () -> delegate.findByEmail(email));
+    }
+
+    private Optional<User> findByUniqueKey(Cache<String, String> index, String value,
+                                           Function<CachedUser, String> keyOf,
+                                           Supplier<Optional<User>> loader) {
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+        String key = DynamoDbUserRepository.normalize(value);
+        String id = index.getIfPresent(key);
+        // asMap().get não conta nas estatísticas do cache de ids: o acerto já foi contado no índice
+        CachedUser cached = id != null ? byId.asMap().get(id) : null;
+        if (cached != null && key.equals(keyOf.apply(cached))) {
+            return Optional.of(cached.toUser());
+        }
+        return load(loader);
+    }
+
+    private Optional<User> load(Supplier<Optional<User>> loader) {
+        Optional<User> user = loader.get();
+        user.filter(found -> found.getId() != null).ifPresent(this::put);
+        return user;
+    }
+
+    private void put(User user) {
+        CachedUser cached = CachedUser.of(user);
+        byId.put(user.getId(), cached);
+        if (cached.username() != null) {
+            idByUsername.put(cached.username(), user.getId());
+        }
+        if (cached.email() != null) {
+            idByEmail.put(cached.email(), user.getId());
+        }
+        // Conferido depois de guardar: uma invalidação antes deste ponto desfaz o put, uma depois remove a entrada
+        if (recentlyInvalidated.getIfPresent(user.getId()) != null) {
+            evictLocally(user.getId());
+        }
+    }
+
+    /** Invalida o usuário nesta réplica e anuncia às demais. */
+    private void invalidate(String id) {
+        if (id == null) {
+            return;
+        }
+        markAndEvict(id);
+        broadcaster.publish(id);
+    }
+
+    /** Recebe as invalidações anunciadas, inclusive as desta réplica. */
+    private void onInvalidation(String id) {
+        invalidations.increment();
+        markAndEvict(id);
+    }
+
+    private void markAndEvict(String id) {
+        recentlyInvalidated.put(id, Boolean.TRUE);
+        evictLocally(id);
+    }
+
+    private void evictLocally(String id) {
+        CachedUser removed = byId.asMap().remove(id);
+        if (removed != null) {
+            unlink(id, removed);
+        }
+    }
+
+    /** Remove username e email que apontam para o usuário, desde que ainda apontem para ele. */
+    private void unlink(String id, CachedUser cached) {
+        if (cached == null) {
+            return;
+        }
+        if (cached.username() != null) {
+            idByUsername.asMap().remove(cached.username(), id);
+        }
+        if (cached.email() != null) {
+            idByEmail.asMap().remove(cached.email(), id);
+        }
+    }
+
+    @Override
+    public User save(User user) {
+        try {
+            return delegate.save(user);
+        } finally {
+            invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public User create(User user) {
+        return delegate.create(user);
+    }
+
+    @Override
+    public Map<String, RuntimeException> createAll(List<User> users) {
+        return delegate.createAll(users);
+    }
+
+    @Override
+    public Set<String> findReservedUniqueKeys(Collection<String> uniqueKeyIds) {
+        return delegate.findReservedUniqueKeys(uniqueKeyIds);
+    }
+
+    @Override
+    public List<UserView> findAllByIds(Collection<String> ids) {
+        return delegate.findAllByIds(ids);
+    }
+
+    @Override
+    public User updateFields(String id, Map<UserField, Object> changes, boolean revokeTokens) {
+        try {
+            return delegate.updateFields(id, changes, revokeTokens);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public User updateFields(User current, Map<UserField, Object> changes, boolean revokeTokens) {
+        try {
+            return delegate.updateFields(current, changes, revokeTokens);
+        } finally {
+            invalidate(current.getId());
+        }
+    }
+
+    @Override
+    public User updateUniqueField(User user, UserField field, String newValue, boolean revokeTokens) {
+        try {
+            return delegate.updateUniqueField(user, field, newValue, revokeTokens);
+        } finally {
+            invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public long recordFailedLogin(User user, LocalDateTime windowStart) {
+        try {
+            return delegate.recordFailedLogin(user, windowStart);
+        } finally {
+            invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public void clearFailedLogins(String id) {
+        try {
+            delegate.clearFailedLogins(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public Optional<User> deleteById(String id) {
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public void delete(User user) {
+        try {
+            delegate.delete(user);
+        } finally {
+            invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Page<UserView> findSegmentPage(int segment, int totalSegments, String lastKey, int limit) {
+        return delegate.findSegmentPage(segment, totalSegments, lastKey, limit);
+    }
+
+    @Override
+    public Page<UserView> findPage(Map<String, AttributeValue> exclusiveStartKey, int limit) {
+        return delegate.findPage(exclusiveStartKey, limit);
+    }
+
+    @Override
+    public Page<UserView> findPageByStatusOrRole(UserState status, UserRole role, Map<String, AttributeValue> exclusiveStartKey, int limit) {
+        return delegate.findPageByStatusOrRole(status, role, exclusiveStartKey, limit);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return delegate.existsByEmail(email);
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        return delegate.existsByUsername(username);
+    }
+
+    /** Item codificado do usuário, imutável, com username e email normalizados para desfazer os índices. */
+    private record CachedUser(String username, String email, Map<String, AttributeValue> item) {
+
+        static CachedUser of(User user) {
+            return new CachedUser(
+                    user.getUsername() != null ? DynamoDbUserRepository.normalize(user.getUsername()) : null,
+                    user.getEmail() != null ? DynamoDbUserRepository.normalize(user.getEmail()) : null,
+                    Map.copyOf(UserTableSchema.USER.itemToMap(user, true)));
+        }
+
+        User toUser() {
+            return UserTableSchema.USER.mapToItem(item);
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package br.unibh.userservice.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
+import br.unibh.userservice.entity.UserTableSchema;
+import br.unibh.userservice.entity.UserUniqueKey;
+import br.unibh.userservice.entity.UserView;
+import br.unibh.userservice.exception.ServiceExceptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.core.async.SdkPublisher;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactPutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+@Repository
+@ConditionalOnProperty(name = "aws.dynamodb.async.enabled", havingValue = "true")
+public class DynamoDbAsyncUserRepository implements AsyncUserRepository {
+
+    private static final Expression ITEM_NOT_EXISTS = Expression.builder()
+            .expression("attribute_not_exists(id)")
+            .build();
+
+    private final DynamoDbEnhancedAsyncClient enhancedClient;
+    private final DynamoDbAsyncClient dynamoDbClient;
+    private final String tableName;
+    private final DynamoDbAsyncTable<User> userTable;
+    private final DynamoDbAsyncTable<UserUniqueKey> uniqueKeyTable;
+    private final DynamoDbAsyncTable<UserView> viewTable;
+    private final UserWriteRequests writeRequests;
+    private final UserCacheInvalidationBroadcaster cacheInvalidation;
+    private final SingleFlight<Optional<User>> byIdLookups;
+    private final SingleFlight<Optional<User>> byIdConsistentLookups;
+    private final SingleFlight<Optional<User>> byUsernameLookups;
+    private final SingleFlight<Optional<User>> byEmailLookups;
+    private final UniqueKeyFilter keyFilter;
+
+    public DynamoDbAsyncUserRepository(DynamoDbEnhancedAsyncClient enhancedClient,
+                                       DynamoDbAsyncClient dynamoDbClient,
+                                       UserCacheInvalidationBroadcaster cacheInvalidation,
+                                       MeterRegistry meterRegistry,
+                                       UniqueKeyFilter keyFilter,
+                                       @Value("${aws.dynamodb.tableName}") String tableName) {
+        this.enhancedClient = enhancedClient;
+        this.dynamoDbClient = dynamoDbClient;
+        this.cacheInvalidation = cacheInvalidation;
+        this.tableName = tableName;
+        this.userTable = enhancedClient.table(tableName, UserTableSchema.USER);
+        this.uniqueKeyTable = enhancedClient.table(tableName, UserTableSchema.UNIQUE_KEY);
+        this.viewTable = enhancedClient.table(tableName, UserTableSchema.VIEW);
+        this.writeRequests = new UserWriteRequests(tableName, userTable.tableSchema(), uniqueKeyTable.tableSchema());
+        this.byIdLookups = SingleFlight.forUserLookup(meterRegistry, "byId", "async");
+        this.byIdConsistentLookups = SingleFlight.forUserLookup(meterRegistry, "byIdConsistent", "async");
+        this.byUsernameLookups = SingleFlight.forUserLookup(meterRegistry, "byUsername", "async");
+        this.byEmailLookups = SingleFlight.forUserLookup(meterRegistry, "byEmail", "async");
+        this.keyFilter = keyFilter;
+    }
+
+    @Override
+    public CompletableFuture<User> create(User user) {
+        if (user.getCreatedAt() == null) {
+            user.setCreatedAt(LocalDateTime.now());
+        }
+        user.setUpdatedAt(LocalDateTime.now());
+
+        var transaction = TransactWriteItemsEnhancedRequest.builder()
+                .addPutItem(userTable, conditionalPut(User.class, user))
+                .addPutItem(uniqueKeyTable, conditionalPut(UserUniqueKey.class,
+                        UserUniqueKey.forUsername(user.getUsername(), user.getId())))
+                .addPutItem(uniqueKeyTable, conditionalPut(UserUniqueKey.class,
+                        UserUniqueKey.forEmail(user.getEmail(), user.getId())))
+                .build();
+
+        return enhancedClient.transactWriteItems(transaction).handle((ignored, failure) -> {
+            if (failure != null) {
+                // Ordem das ações: 0 = usuário, 1 = username, 2 = email
+                throw UserWriteRequests.translate(failure, false, 1, 2);
+            }
+            user.setVersion(UserWriteRequests.nextVersion(user.getVersion()));
+            keyFilter.added(user);
+            forgetLookups(user.getId());
+            return user;
+        });
+    }
+
+    @Override
+    public CompletableFuture<User> updateFields(String id, Map<UserField, Object> changes, boolean revokeTokens) {
+        return update(id, writeRequests.updateFields(id, null, changes, revokeTokens));
+    }
+
+    @Override
+    public CompletableFuture<User> updateFields(User current, Map<UserField, Object> changes, boolean revokeTokens) {
+        return update(current.getId(), writeRequests.updateFields(current.getId(), current, changes, revokeTokens));
+    }
+
+    private CompletableFuture<User> update(String id, UpdateItemRequest request) {
+        return invalidatingCache(id, dynamoDbClient.updateItem(request).handle((response, failure) -> {
+            if (failure != null) {
+                throw UserWriteRequests.translate(failure, true, -1, -1);
+            }
+            return writeRequests.toUser(response.attributes());
+        }));
+    }
+
+    @Override
+    public CompletableFuture<Long> recordFailedLogin(User user, LocalDateTime windowStart) {
+        LocalDateTime now = LocalDateTime.now();
+        CompletableFuture<Long> recorded;
+        if (UserWriteRequests.restartsFailedLogins(user, windowStart)) {
+            // Se outra réplica gravou uma falha mais nova depois da leitura, a janela segue aberta: soma nela
+            recorded = dynamoDbClient.updateItem(writeRequests.recordFailedLogin(user.getId(), now, windowStart, true))
+                    .thenApply(response -> UserWriteRequests.failedLoginsOf(response.attributes()))
+                    .exceptionallyCompose(failure -> addFailedLogin(user.getId(), now, windowStart));
+        } else {
+            recorded = addFailedLogin(user.getId(), now, windowStart);
+        }
+        return invalidatingCache(user.getId(), recorded);
+    }
+
+    private CompletableFuture<Long> addFailedLogin(String id, LocalDateTime now, LocalDateTime windowStart) {
+        return dynamoDbClient.updateItem(writeRequests.recordFailedLogin(id, now, windowStart, false)).handle((response, failure) -> {
+            if (failure != null) {
+                throw UserWriteRequests.translate(failure, true, -1, -1);
+            }
+            return UserWriteRequests.failedLoginsOf(response.attributes());
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> clearFailedLogins(String id) {
+        return invalidatingCache(id, dynamoDbClient.updateItem(writeRequests.clearFailedLogins(id)).handle((response, failure) -> {
+            if (failure != null) {
+                throw UserWriteRequests.translate(failure, true, -1, -1);
+            }
+            return null;
+        }));
+    }
+
+    @Override
+    public CompletableFuture<User> updateUniqueField(User user, UserField field, String newValue, boolean revokeTokens) {
+        var update = writeRequests.updateUniqueField(user, field, newValue, revokeTokens);
+        return invalidatingCache(user.getId(), dynamoDbClient.transactWriteItems(update.request()).handle((response, failure) -> {
+            if (failure != null) {
+                throw update.translate(failure);
+            }
+            User updated = update.applyTo(user);
+            keyFilter.added(updated);
+            return updated;
+        }));
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> findById(String id) {
+        if (id == null || UserUniqueKey.isUniqueKeyId(id)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return byIdLookups.executeAsync(id, () -> userTable.getItem(keyOf(id))
+                .thenApply(user -> Optional.ofNullable(user).filter(found -> found.getUsername() != null)));
+    }
+
+    /**
+     * Leituras consistentes simultâneas do mesmo id compartilham um {@code GetItem}, separado do de
+     * {@link #findById}: uma leitura eventual nunca responde a quem pediu uma consistente. Gravações desta réplica
+     * encerram a junção ({@link SingleFlight#forget}), então quem viu a gravação terminar faz uma leitura nova.
+     */
+    @Override
+    public CompletableFuture<Optional<User>> findByIdConsistent(String id) {
+        if (id == null || UserUniqueKey.isUniqueKeyId(id)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return byIdConsistentLookups.executeAsync(id, () -> userTable.getItem(GetItemEnhancedRequest.builder()
+                        .key(keyOf(id))
+                        .consistentRead(true)
+                        .build())
+                .thenApply(user -> Optional.ofNullable(user).filter(found -> found.getUsername() != null)));
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> findByUsername(String username) {
+        if (!keyFilter.mightContainUsername(username)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return findFirstByIndex(byUsernameLookups, User.USERNAME_INDEX, username);
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> findByEmail(String email) {
+        if (!keyFilter.mightContainEmail(email)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return findFirstByIndex(byEmailLookups, User.EMAIL_INDEX, email);
+    }
+
+    @Override
+    public CompletableFuture<List<UserView>> findAllByIds(Collection<String> ids) {
+        List<String> userIds = ids.stream()
+                .filter(id -> id != null && !UserUniqueKey.isUniqueKeyId(id))
+                .distinct()
+                .toList();
+        List<CompletableFuture<List<Map<String, AttributeValue>>>> chunks = new ArrayList<>();
+        for (int start = 0; start < userIds.size(); start += DynamoDbUserRepository.MAX_BATCH_GET_KEYS) {
+            List<String> chunk = userIds.subList(start, Math.min(start + DynamoDbUserRepository.MAX_BATCH_GET_KEYS, userIds.size()));
+            Map<String, KeysAndAttributes> request = Map.of(tableName, DynamoDbUserRepository.projected(KeysAndAttributes.builder(), UserView.ATTRIBUTES)
+                    .keys(chunk.stream().map(UserWriteRequests::idKey).toList())
+                    .build());
+            chunks.add(batchGetWithRetry(request, new ArrayList<>(), 1));
+        }
+
+        return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            Map<String, UserView> usersById = new HashMap<>();
+            chunks.forEach(chunk -> chunk.join().stream()
+                    .map(viewTable.tableSchema()::mapToItem)
+                    .filter(user -> user.getUsername() != null)
+                    .forEach(user -> usersById.put(user.getId(), user)));
+            return DynamoDbUserRepository.inRequestOrder(userIds, usersById);
+        });
+    }
+
+    /** Reenvia os {@code UnprocessedKeys} após o backoff, sem ocupar thread durante a espera. */
+    private CompletableFuture<List<Map<String, AttributeValue>>> batchGetWithRetry(Map<String, KeysAndAttributes> request,
+                                                                                List<Map<String, AttributeValue>> items,
+                                                                                int attempt) {
+        return dynamoDbClient.batchGetItem(b -> b.requestItems(request)).thenCompose(response -> {
+            items.addAll(response.responses().getOrDefault(tableName, List.of()));
+            if (!response.hasUnprocessedKeys() || response.unprocessedKeys().isEmpty()) {
+                return CompletableFuture.completedFuture(items);
+            }
+            if (attempt >= DynamoDbUserRepository.MAX_BATCH_ATTEMPTS) {
+                return CompletableFuture.failedFuture(new ServiceExceptions.ServiceOverloadedException(
+                        "O DynamoDB não processou todas as chaves do lote. Tente novamente."));
+            }
+            Executor delayed = CompletableFuture.delayedExecutor(DynamoDbUserRepository.backoffMillis(attempt), TimeUnit.MILLISECONDS);
+            return CompletableFuture.supplyAsync(response::unprocessedKeys, delayed)
+                    .thenCompose(unprocessed -> batchGetWithRetry(unprocessed, items, attempt + 1));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Page<UserView>> findPage(Map<String, AttributeValue> exclusiveStartKey, int limit) {
+        return firstPage(viewTable.scan(DynamoDbUserRepository.pageScan(exclusiveStartKey, limit)))
+                .thenApply(page -> page.orElseGet(() -> Page.create(List.of())));
+    }
+
+    @Override
+    public CompletableFuture<Page<UserView>> findPageByStatusOrRole(UserState status, UserRole role, Map<String, AttributeValue> exclusiveStartKey, int limit) {
+        QueryEnhancedRequest request = DynamoDbUserRepository.statusOrRoleQuery(status, role, exclusiveStartKey, limit);
+        return firstPage(viewTable.index(status != null ? User.STATUS_INDEX : User.ROLE_INDEX).query(request))
+                .thenApply(page -> page.orElseGet(() -> Page.create(List.of())));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(User user) {
+        return invalidatingCache(user.getId(), dynamoDbClient.transactWriteItems(writeRequests.delete(user)).handle((response, failure) -> {
+            if (failure != null) {
+                throw UserWriteRequests.translate(failure, true, -1, -1);
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * As gravações daqui não passam pelo {@link CachingUserRepository}; anunciar a mudança tira o usuário do
+     * cache desta e das outras réplicas, com ou sem sucesso (uma falha de versão indica que o cache está velho).
+     * As leituras em andamento deixam de ser compartilhadas antes de quem gravou ver o resultado.
+     */
+    private <T> CompletableFuture<T> invalidatingCache(String id, CompletableFuture<T> write) {
+        return write.whenComplete((ignored, failure) -> {
+            forgetLookups(id);
+            cacheInvalidation.publish(id);
+        });
+    }
+
+    /** Mesma regra do {@link DynamoDbUserRepository}: o id e todas as buscas por índice. */
+    private void forgetLookups(String id) {
+        byIdLookups.forget(id);
+        byIdConsistentLookups.forget(id);
+        byUsernameLookups.forgetAll();
+        byEmailLookups.forgetAll();
+    }
+
+    /** Consultas simultâneas ao índice pelo mesmo valor normalizado compartilham um único {@code Query}. */
+    private CompletableFuture<Optional<User>> findFirstByIndex(SingleFlight<Optional<User>> lookups, String indexName, String value) {
+        if (value == null || value.isBlank()) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        String normalized = DynamoDbUserRepository.normalize(value);
+        QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(normalized)))
+                .limit(1)
+                .build();
+
+        return lookups.executeAsync(normalized, () -> firstPage(userTable.index(indexName).query(request))
+                .thenApply(page -> page.flatMap(found -> found.items().stream().findFirst())));
+    }
+
+    /** Consome só a primeira página do publisher, sem pedir as seguintes ao DynamoDB. */
+    private static <T> CompletableFuture<Optional<Page<T>>> firstPage(SdkPublisher<Page<T>> pages) {
+        AtomicReference<Page<T>> first = new AtomicReference<>();
+        return pages.limit(1)
+                .subscribe(first::set)
+                .thenApply(ignored -> Optional.ofNullable(first.get()));
+    }
+
+    private static <T> TransactPutItemEnhancedRequest<T> conditionalPut(Class<T> type, T item) {
+        return TransactPutItemEnhancedRequest.builder(type)
+                .item(item)
+                .conditionExpression(ITEM_NOT_EXISTS)
+                .build();
+    }
+
+    private static Key keyOf(String id) {
+        return Key.builder().partitionValue(id).build();
+    }
+}
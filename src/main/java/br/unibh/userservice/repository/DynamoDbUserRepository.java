@@ -1,26 +1,109 @@
 package br.unibh.userservice.repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Repository;
 
 import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
+import br.unibh.userservice.entity.UserTableSchema;
+import br.unibh.userservice.entity.UserUniqueKey;
+import br.unibh.userservice.entity.UserView;
+import br.unibh.userservice.exception.ServiceExceptions;
+import io.micrometer.core.instrument.MeterRegistry;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactPutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
 
-@Repository 
-public class DynamoDbUserRepository implements UserRepository {
+@Repository
+public class DynamoDbUserRepository implements UserRepository, DisposableBean {
 
+    /** Filtro que separa os usuários dos itens de reserva de username/email. */
+    public static final Expression USER_ITEMS_ONLY = Expression.builder()
+            .expression("attribute_exists(username)")
+            .build();
+
+    private static final Expression ITEM_NOT_EXISTS = Expression.builder()
+            .expression("attribute_not_exists(id)")
+            .build();
+
+    static final int MAX_BATCH_GET_KEYS = 100;
+    static final int MAX_BATCH_ATTEMPTS = 8;
+    private static final long BATCH_BACKOFF_BASE_MILLIS = 50;
+    private static final long BATCH_BACKOFF_MAX_MILLIS = 2_000;
+
+    private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
     private final DynamoDbTable<User> userTable;
+    private final DynamoDbTable<UserUniqueKey> uniqueKeyTable;
+    private final DynamoDbTable<UserView> viewTable;
+    private final UserWriteRequests writeRequests;
+    /** Leituras em lote ({@code /users/batch} e o {@code UserBatchLoader}). */
+    private final ExecutorService batchExecutor;
+    /** Transações da importação, que esperam em backoff; separadas para não enfileirar as leituras atrás delas. */
+    private final ExecutorService importExecutor;
+    private final SingleFlight<Optional<User>> byIdLookups;
+    private final SingleFlight<Optional<User>> byIdConsistentLookups;
+    private final SingleFlight<Optional<User>> byUsernameLookups;
+    private final SingleFlight<Optional<User>> byEmailLookups;
+    private final UniqueKeyFilter keyFilter;
 
     public DynamoDbUserRepository(DynamoDbEnhancedClient enhancedClient,
-                                @Value("${aws.dynamodb.tableName}") String tableName) {
-        this.userTable = enhancedClient.table(tableName, TableSchema.fromBean(User.class));
+                                  DynamoDbClient dynamoDbClient,
+                                  DynamoDbTable<User> userTable,
+                                  MeterRegistry meterRegistry,
+                                  UniqueKeyFilter keyFilter,
+                                  @Value("${aws.dynamodb.tableName}") String tableName,
+                                  @Value("${aws.dynamodb.batchParallelism:4}") int batchParallelism,
+                                  @Value("${aws.dynamodb.importParallelism:4}") int importParallelism) {
+        this.enhancedClient = enhancedClient;
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.userTable = userTable;
+        this.uniqueKeyTable = enhancedClient.table(tableName, UserTableSchema.UNIQUE_KEY);
+        this.viewTable = enhancedClient.table(tableName, UserTableSchema.VIEW);
+        this.writeRequests = new UserWriteRequests(tableName, userTable.tableSchema(), uniqueKeyTable.tableSchema());
+        this.batchExecutor = Executors.newFixedThreadPool(batchParallelism, new CustomizableThreadFactory("dynamodb-batch-"));
+        this.importExecutor = Executors.newFixedThreadPool(importParallelism, new CustomizableThreadFactory("dynamodb-import-"));
+        this.byIdLookups = SingleFlight.forUserLookup(meterRegistry, "byId", "sync");
+        this.byIdConsistentLookups = SingleFlight.forUserLookup(meterRegistry, "byIdConsistent", "sync");
+        this.byUsernameLookups = SingleFlight.forUserLookup(meterRegistry, "byUsername", "sync");
+        this.byEmailLookups = SingleFlight.forUserLookup(meterRegistry, "byEmail", "sync");
+        this.keyFilter = keyFilter;
     }
 
     @Override
@@ -29,50 +112,493 @@ public class DynamoDbUserRepository implements UserRepository {
             user.setCreatedAt(LocalDateTime.now());
         }
         user.setUpdatedAt(LocalDateTime.now());
-        userTable.putItem(user);
+        try {
+            // O VersionedRecordExtension condiciona o put à versão lida e grava a próxima
+            userTable.putItem(user);
+        } catch (ConditionalCheckFailedException e) {
+            throw UserWriteRequests.concurrentUpdate();
+        }
+        user.setVersion(UserWriteRequests.nextVersion(user.getVersion()));
+        keyFilter.added(user);
+        forgetLookups(user.getId());
+        return user;
+    }
+
+    @Override
+    public User create(User user) {
+        if (user.getCreatedAt() == null) {
+            user.setCreatedAt(LocalDateTime.now());
+        }
+        user.setUpdatedAt(LocalDateTime.now());
+
+        try {
+            enhancedClient.transactWriteItems(createTransaction(user));
+        } catch (TransactionCanceledException e) {
+            // Ordem das ações: 0 = usuário, 1 = username, 2 = email
+            throw UserWriteRequests.translate(e, false, 1, 2);
+        }
+        user.setVersion(UserWriteRequests.nextVersion(user.getVersion()));
+        keyFilter.added(user);
+        forgetLookups(user.getId());
         return user;
     }
 
+    /** O usuário e as duas reservas, cada um condicionado a ainda não existir. */
+    private TransactWriteItemsEnhancedRequest createTransaction(User user) {
+        return TransactWriteItemsEnhancedRequest.builder()
+                .addPutItem(userTable, conditionalPut(User.class, user, ITEM_NOT_EXISTS))
+                .addPutItem(uniqueKeyTable, conditionalPut(UserUniqueKey.class,
+                        UserUniqueKey.forUsername(user.getUsername(), user.getId()), ITEM_NOT_EXISTS))
+                .addPutItem(uniqueKeyTable, conditionalPut(UserUniqueKey.class,
+                        UserUniqueKey.forEmail(user.getEmail(), user.getId()), ITEM_NOT_EXISTS))
+                .build();
+    }
+
+    @Override
+    public Map<String, RuntimeException> createAll(List<User> users) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, CompletableFuture<Void>> pending = new LinkedHashMap<>();
+        for (User user : users) {
+            if (user.getCreatedAt() == null) {
+                user.setCreatedAt(now);
+            }
+            user.setUpdatedAt(now);
+            pending.put(user.getId(), CompletableFuture.runAsync(() -> createWithRetry(user), importExecutor));
+        }
+
+        Map<String, RuntimeException> failures = new HashMap<>();
+        for (User user : users) {
+            try {
+                pending.get(user.getId()).join();
+                keyFilter.added(user);
+                forgetLookups(user.getId());
+            } catch (CompletionException e) {
+                failures.put(user.getId(), e.getCause() instanceof RuntimeException cause ? cause : e);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Mesma transação do {@link #create}, reenviada com backoff quando é cancelada só por conflito com outra
+     * transação ou por throttling. Uma condição violada não é reenviada: vira a exceção de domínio.
+     */
+    private void createWithRetry(User user) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                enhancedClient.transactWriteItems(createTransaction(user));
+                user.setVersion(UserWriteRequests.nextVersion(user.getVersion()));
+                return;
+            } catch (TransactionCanceledException e) {
+                if (!UserWriteRequests.isTransient(e)) {
+                    throw UserWriteRequests.translate(e, false, 1, 2);
+                }
+                if (attempt >= MAX_BATCH_ATTEMPTS || !backoff(attempt)) {
+                    throw new ServiceExceptions.ServiceOverloadedException("Não foi possível gravar o usuário após várias tentativas.");
+                }
+            }
+        }
+    }
+
+    @Override
+    public Set<String> findReservedUniqueKeys(Collection<String> uniqueKeyIds) {
+        List<String> ids = uniqueKeyIds.stream().distinct().toList();
+        Set<String> reserved = new HashSet<>();
+        for (int start = 0; start < ids.size(); start += MAX_BATCH_GET_KEYS) {
+            batchGetWithRetry(ids.subList(start, Math.min(start + MAX_BATCH_GET_KEYS, ids.size())), List.of("id"))
+                    .forEach(item -> reserved.add(item.get("id").s()));
+        }
+        return reserved;
+    }
+
+    @Override
+    public List<UserView> findAllByIds(Collection<String> ids) {
+        List<String> userIds = ids.stream()
+                .filter(id -> id != null && !UserUniqueKey.isUniqueKeyId(id))
+                .distinct()
+                .toList();
+        List<List<String>> chunks = new ArrayList<>();
+        for (int start = 0; start < userIds.size(); start += MAX_BATCH_GET_KEYS) {
+            chunks.add(userIds.subList(start, Math.min(start + MAX_BATCH_GET_KEYS, userIds.size())));
+        }
+
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        if (chunks.size() == 1) {
+            items.addAll(batchGetWithRetry(chunks.get(0), UserView.ATTRIBUTES));
+        } else {
+            // Cada bloco de 100 chaves é uma chamada independente; disparadas juntas, a latência total é a do bloco mais lento
+            List<CompletableFuture<List<Map<String, AttributeValue>>>> pending = chunks.stream()
+                    .map(chunk -> CompletableFuture.supplyAsync(() -> batchGetWithRetry(chunk, UserView.ATTRIBUTES), batchExecutor))
+                    .toList();
+            try {
+                pending.forEach(chunk -> items.addAll(chunk.join()));
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        Map<String, UserView> usersById = new HashMap<>();
+        for (Map<String, AttributeValue> item : items) {
+            UserView user = viewTable.tableSchema().mapToItem(item);
+            if (user.getUsername() != null) {
+                usersById.put(user.getId(), user);
+            }
+        }
+        return inRequestOrder(userIds, usersById);
+    }
+
+    @Override
+    public Map<String, User> findUsersByIds(Collection<String> ids) {
+        List<String> userIds = ids.stream()
+                .filter(id -> id != null && !UserUniqueKey.isUniqueKeyId(id))
+                .distinct()
+                .toList();
+        Map<String, User> usersById = new HashMap<>();
+        for (int start = 0; start < userIds.size(); start += MAX_BATCH_GET_KEYS) {
+            for (Map<String, AttributeValue> item : batchGetWithRetry(userIds.subList(start, Math.min(start + MAX_BATCH_GET_KEYS, userIds.size())), null)) {
+                User user = userTable.tableSchema().mapToItem(item);
+                if (user.getUsername() != null) {
+                    usersById.put(user.getId(), user);
+                }
+            }
+        }
+        return usersById;
+    }
+
+    /** Ordena os usuários encontrados na ordem dos ids pedidos, omitindo os ids sem usuário. */
+    static List<UserView> inRequestOrder(List<String> ids, Map<String, UserView> usersById) {
+        return ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Lê até 100 itens com {@code BatchGetItem}, reenviando os {@code UnprocessedKeys} com backoff.
+     *
+     * @param attributes Atributos lidos de cada item; {@code null} lê o item inteiro.
+     */
+    private List<Map<String, AttributeValue>> batchGetWithRetry(List<String> ids, List<String> attributes) {
+        KeysAndAttributes.Builder keys = attributes != null
+                ? projected(KeysAndAttributes.builder(), attributes)
+                : KeysAndAttributes.builder();
+        Map<String, KeysAndAttributes> pending = Map.of(tableName, keys
+                .keys(ids.stream().map(UserWriteRequests::idKey).toList())
+                .build());
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            var request = pending;
+            var response = dynamoDbClient.batchGetItem(b -> b.requestItems(request));
+            items.addAll(response.responses().getOrDefault(tableName, List.of()));
+            pending = response.hasUnprocessedKeys() ? response.unprocessedKeys() : Map.of();
+            if (!pending.isEmpty() && (attempt >= MAX_BATCH_ATTEMPTS || !backoff(attempt))) {
+                throw new ServiceExceptions.ServiceOverloadedException("O DynamoDB não processou todas as chaves do lote. Tente novamente.");
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Aplica a {@code ProjectionExpression} com nomes substitutos, já que {@code status} e {@code role} são
+     * palavras reservadas do DynamoDB.
+     */
+    static KeysAndAttributes.Builder projected(KeysAndAttributes.Builder builder, List<String> attributes) {
+        Map<String, String> names = new HashMap<>();
+        List<String> placeholders = new ArrayList<>();
+        for (String attribute : attributes) {
+            names.put("#" + attribute, attribute);
+            placeholders.add("#" + attribute);
+        }
+        return builder.projectionExpression(String.join(", ", placeholders)).expressionAttributeNames(names);
+    }
+
+    /** Espera antes da próxima tentativa; devolve {@code false} se a thread foi interrompida. */
+    private static boolean backoff(int attempt) {
+        try {
+            Thread.sleep(backoffMillis(attempt));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Backoff exponencial com jitter entre metade e o total do teto da tentativa. */
+    static long backoffMillis(int attempt) {
+        long ceiling = Math.min(BATCH_BACKOFF_MAX_MILLIS, BATCH_BACKOFF_BASE_MILLIS << attempt);
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    @Override
+    public User updateFields(String id, Map<UserField, Object> changes, boolean revokeTokens) {
+        return update(writeRequests.updateFields(id, null, changes, revokeTokens));
+    }
+
+    @Override
+    public User updateFields(User current, Map<UserField, Object> changes, boolean revokeTokens) {
+        return update(writeRequests.updateFields(current.getId(), current, changes, revokeTokens));
+    }
+
+    private User update(UpdateItemRequest request) {
+        try {
+            User updated = writeRequests.toUser(dynamoDbClient.updateItem(request).attributes());
+            forgetLookups(updated.getId());
+            return updated;
+        } catch (ConditionalCheckFailedException e) {
+            throw UserWriteRequests.translate(e, true, -1, -1);
+        }
+    }
+
+    @Override
+    public long recordFailedLogin(User user, LocalDateTime windowStart) {
+        LocalDateTime now = LocalDateTime.now();
+        if (UserWriteRequests.restartsFailedLogins(user, windowStart)) {
+            try {
+                long failures = UserWriteRequests.failedLoginsOf(dynamoDbClient.updateItem(
+                        writeRequests.recordFailedLogin(user.getId(), now, windowStart, true)).attributes());
+                forgetLookups(user.getId());
+                return failures;
+            } catch (ConditionalCheckFailedException e) {
+                // Outra réplica gravou uma falha mais nova depois da leitura: a janela segue aberta, soma nela
+            }
+        }
+        try {
+            long failures = UserWriteRequests.failedLoginsOf(dynamoDbClient.updateItem(
+                    writeRequests.recordFailedLogin(user.getId(), now, windowStart, false)).attributes());
+            forgetLookups(user.getId());
+            return failures;
+        } catch (ConditionalCheckFailedException e) {
+            throw UserWriteRequests.translate(e, true, -1, -1);
+        }
+    }
+
+    @Override
+    public void clearFailedLogins(String id) {
+        try {
+            dynamoDbClient.updateItem(writeRequests.clearFailedLogins(id));
+            forgetLookups(id);
+        } catch (ConditionalCheckFailedException e) {
+            throw UserWriteRequests.translate(e, true, -1, -1);
+        }
+    }
+
+    @Override
+    public User updateUniqueField(User user, UserField field, String newValue, boolean revokeTokens) {
+        var update = writeRequests.updateUniqueField(user, field, newValue, revokeTokens);
+        try {
+            dynamoDbClient.transactWriteItems(update.request());
+        } catch (TransactionCanceledException e) {
+            throw update.translate(e);
+        }
+        User updated = update.applyTo(user);
+        keyFilter.added(updated);
+        forgetLookups(updated.getId());
+        return updated;
+    }
+
+    /**
+     * Chamado ao fim de toda gravação bem-sucedida: quem viu a gravação terminar não pode aproveitar uma leitura
+     * que começou antes dela. As buscas por índice são todas soltas, porque a gravação pode ter mudado o
+     * username/email e nem toda gravação os conhece; custa no máximo uma leitura a mais por busca simultânea.
+     */
+    private void forgetLookups(String id) {
+        byIdLookups.forget(id);
+        byIdConsistentLookups.forget(id);
+        byUsernameLookups.forgetAll();
+        byEmailLookups.forgetAll();
+    }
+
+    /** Leituras simultâneas do mesmo id compartilham um único {@code GetItem} (ver {@link SingleFlight}). */
     @Override
     public Optional<User> findById(String id) {
-        Key key = Key.builder().partitionValue(id).build();
-        return Optional.ofNullable(userTable.getItem(key));
+        if (id == null || UserUniqueKey.isUniqueKeyId(id)) {
+            return Optional.empty();
+        }
+        return byIdLookups.execute(id, () -> Optional.ofNullable(userTable.getItem(keyOf(id)))
+                .filter(user -> user.getUsername() != null));
+    }
+
+    /**
+     * Leituras consistentes simultâneas do mesmo id compartilham um {@code GetItem}, separado do de
+     * {@link #findById}: uma leitura eventual nunca responde a quem pediu uma consistente. Gravações desta réplica
+     * encerram a junção ({@link SingleFlight#forget}), então quem viu a gravação terminar faz uma leitura nova.
+     */
+    @Override
+    public Optional<User> findByIdConsistent(String id) {
+        if (id == null || UserUniqueKey.isUniqueKeyId(id)) {
+            return Optional.empty();
+        }
+        return byIdConsistentLookups.execute(id, () -> Optional.ofNullable(userTable.getItem(GetItemEnhancedRequest.builder()
+                        .key(keyOf(id))
+                        .consistentRead(true)
+                        .build()))
+                .filter(user -> user.getUsername() != null));
     }
 
     @Override
     public Optional<User> deleteById(String id) {
-        Key key = Key.builder().partitionValue(id).build();
-        return Optional.ofNullable(userTable.deleteItem(key));
+        Optional<User> user = findById(id);
+        user.ifPresent(this::delete);
+        return user;
+    }
+
+    @Override
+    public void delete(User user) {
+        try {
+            dynamoDbClient.transactWriteItems(writeRequests.delete(user));
+        } catch (TransactionCanceledException e) {
+            throw UserWriteRequests.translate(e, true, -1, -1);
+        }
+        forgetLookups(user.getId());
     }
 
     @Override
     public List<User> findAll() {
-        return userTable.scan().items().stream().toList();
+        ScanEnhancedRequest request = ScanEnhancedRequest.builder()
+                .filterExpression(USER_ITEMS_ONLY)
+                .build();
+        return userTable.scan(request).items().stream().toList();
+    }
+
+    @Override
+    public Page<UserView> findSegmentPage(int segment, int totalSegments, String lastKey, int limit) {
+        ScanEnhancedRequest request = ScanEnhancedRequest.builder()
+                .segment(segment)
+                .totalSegments(totalSegments)
+                .limit(limit)
+                .filterExpression(USER_ITEMS_ONLY)
+                .attributesToProject(UserView.ATTRIBUTES)
+                .exclusiveStartKey(lastKey != null ? UserWriteRequests.idKey(lastKey) : null)
+                .build();
+        var pages = viewTable.scan(request).iterator();
+        return pages.hasNext() ? pages.next() : Page.create(List.of());
+    }
+
+    @Override
+    public Page<UserView> findPage(Map<String, AttributeValue> exclusiveStartKey, int limit) {
+        var pages = viewTable.scan(pageScan(exclusiveStartKey, limit)).iterator();
+        return pages.hasNext() ? pages.next() : Page.create(List.of());
+    }
+
+    @Override
+    public Page<UserView> findPageByStatusOrRole(UserState status, UserRole role, Map<String, AttributeValue> exclusiveStartKey, int limit) {
+        var pages = viewTable.index(status != null ? User.STATUS_INDEX : User.ROLE_INDEX)
+                .query(statusOrRoleQuery(status, role, exclusiveStartKey, limit))
+                .iterator();
+        return pages.hasNext() ? pages.next() : Page.create(List.of());
+    }
+
+    /** Scan de uma página da listagem, compartilhado com o repositório assíncrono. */
+    static ScanEnhancedRequest pageScan(Map<String, AttributeValue> exclusiveStartKey, int limit) {
+        return ScanEnhancedRequest.builder()
+                .limit(limit)
+                .filterExpression(USER_ITEMS_ONLY)
+                .attributesToProject(UserView.ATTRIBUTES)
+                .exclusiveStartKey(exclusiveStartKey)
+                .build();
+    }
+
+    /**
+     * Consulta pelo status quando informado, filtrando o papel no próprio índice; sem status, consulta pelo papel.
+     * Compartilhada com o repositório assíncrono.
+     */
+    static QueryEnhancedRequest statusOrRoleQuery(UserState status, UserRole role, Map<String, AttributeValue> exclusiveStartKey, int limit) {
+        if (status == null && role == null) {
+            throw new IllegalArgumentException("Informe o status ou o papel.");
+        }
+        QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(status != null ? status.name() : role.name())))
+                .scanIndexForward(false)
+                .attributesToProject(UserView.ATTRIBUTES)
+                .exclusiveStartKey(exclusiveStartKey)
+                .limit(limit);
+        if (status != null && role != null) {
+            request.filterExpression(Expression.builder()
+                    .expression("#role = :role")
+                    .putExpressionName("#role", "role")
+                    .putExpressionValue(":role", AttributeValue.fromS(role.name()))
+                    .build());
+        }
+        return request.build();
     }
 
     @Override
     public boolean existsByEmail(String email) {
-        return userTable.scan().items().stream()
-                .anyMatch(user -> user.getEmail().equals(email));
+        return email != null && !email.isBlank() && keyFilter.mightContainEmail(email)
+                && isReserved(UserUniqueKey.emailKey(normalize(email)));
     }
 
     @Override
     public boolean existsByUsername(String username) {
-        return userTable.scan().items().stream()
-                .anyMatch(user -> user.getUsername().equals(username));
+        return username != null && !username.isBlank() && keyFilter.mightContainUsername(username)
+                && isReserved(UserUniqueKey.usernameKey(normalize(username)));
+    }
+
+    /**
+     * A reserva é a fonte da verdade da unicidade: um {@code GetItem} consistente só da chave dela, que vê um
+     * cadastro assim que a transação termina e não lê o usuário (nem o hash de senha) como o índice leria.
+     */
+    private boolean isReserved(String uniqueKeyId) {
+        return dynamoDbClient.getItem(b -> b.tableName(tableName)
+                        .key(UserWriteRequests.idKey(uniqueKeyId))
+                        .projectionExpression("id")
+                        .consistentRead(true))
+                .hasItem();
     }
 
     @Override
     public Optional<User> findByUsername(String username) {
-        return userTable.scan().items().stream()
-                .filter(user -> user.getUsername().equals(username))
-                .findFirst();
+        if (!keyFilter.mightContainUsername(username)) {
+            return Optional.empty();
+        }
+        return findFirstByIndex(byUsernameLookups, User.USERNAME_INDEX, username);
     }
 
     @Override
     public Optional<User> findByEmail(String email) {
-        return userTable.scan().items().stream()
-                .filter(user -> user.getEmail().equals(email))
+        if (!keyFilter.mightContainEmail(email)) {
+            return Optional.empty();
+        }
+        return findFirstByIndex(byEmailLookups, User.EMAIL_INDEX, email);
+    }
+
+    /** Consultas simultâneas ao índice pelo mesmo valor normalizado compartilham um único {@code Query}. */
+    private Optional<User> findFirstByIndex(SingleFlight<Optional<User>> lookups, String indexName, String value) {
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+        return lookups.execute(normalize(value), () -> queryFirstByIndex(indexName, value));
+    }
+
+    private Optional<User> queryFirstByIndex(String indexName, String value) {
+        QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(normalize(value))))
+                .limit(1)
+                .build();
+
+        return userTable.index(indexName).query(request).stream()
+                .flatMap(page -> page.items().stream())
                 .findFirst();
     }
-}
\ No newline at end of file
+
+    private static <T> TransactPutItemEnhancedRequest<T> conditionalPut(Class<T> type, T item, Expression condition) {
+        return TransactPutItemEnhancedRequest.builder(type)
+                .item(item)
+                .conditionExpression(condition)
+                .build();
+    }
+
+    private static Key keyOf(String id) {
+        return Key.builder().partitionValue(id).build();
+    }
+
+    static String normalize(String value) {
+        return value.trim().toLowerCase();
+    }
+
+    @Override
+    public void destroy() {
+        batchExecutor.shutdown();
+        importExecutor.shutdown();
+    }
+}
@@ -0,0 +1,35 @@
+package br.unibh.userservice.repository;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Entrega os anúncios de forma síncrona aos ouvintes do mesmo processo. Basta para uma réplica só.
+ */
+@Slf4j
+@Component
+public class LoopbackUniqueKeyBroadcaster implements UniqueKeyBroadcaster {
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String userId) {
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(userId);
+            } catch (RuntimeException e) {
+                log.warn("Falha ao entregar o anúncio do usuário {}: {}", userId, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,36 @@
+package br.unibh.userservice.repository;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Entrega as invalidações de forma síncrona aos ouvintes do mesmo processo. Basta para uma réplica só e para
+ * testes, em que dois caches ligados ao mesmo broadcaster fazem o papel de duas réplicas.
+ */
+@Slf4j
+@Component
+public class LoopbackUserCacheInvalidationBroadcaster implements UserCacheInvalidationBroadcaster {
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String userId) {
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(userId);
+            } catch (RuntimeException e) {
+                log.warn("Falha ao entregar a invalidação do usuário {}: {}", userId, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,121 @@
+package br.unibh.userservice.repository;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserTableSchema;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Junta leituras simultâneas da mesma chave numa só chamada ao DynamoDB: quem chega enquanto a leitura está em
+ * andamento espera por ela em vez de disparar outra. A chave sai do mapa antes de o resultado ser entregue, então
+ * quem chega depois faz uma leitura nova e nunca recebe um resultado anterior à sua chamada.
+ * <p>
+ * Uma gravação local também tira a chave do mapa ({@link #forget}): a leitura em andamento pode ter começado antes
+ * da gravação, e quem já viu a gravação terminar não pode recebê-la. Só são juntadas leituras que começaram depois
+ * da última gravação desta réplica.
+ * <p>
+ * O resultado compartilhado nunca é entregue: cada chamador, inclusive o que fez a leitura, recebe uma cópia,
+ * porque os serviços alteram o {@link User} lido antes de gravá-lo.
+ */
+final class SingleFlight<V> {
+
+    private final ConcurrentHashMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final UnaryOperator<V> copy;
+    private final Counter collapsed;
+
+    SingleFlight(UnaryOperator<V> copy, Counter collapsed) {
+        this.copy = copy;
+        this.collapsed = collapsed;
+    }
+
+    /**
+     * Busca de usuário, com a métrica {@code users.lookups.coalesced} (chamadas que aproveitaram uma leitura em
+     * andamento) marcada com o tipo de busca e o cliente.
+     */
+    static SingleFlight<Optional<User>> forUserLookup(MeterRegistry meterRegistry, String lookup, String client) {
+        return new SingleFlight<>(user -> user.map(UserTableSchema::copyOf),
+                meterRegistry.counter("users.lookups.coalesced", "lookup", lookup, "client", client));
+    }
+
+    /** Versão bloqueante: a thread que chega primeiro faz a leitura, as demais esperam por ela. */
+    V execute(String key, Supplier<V> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            collapsed.increment();
+            return copy.apply(await(running));
+        }
+        try {
+            V value = call.get();
+            inFlight.remove(key, flight);
+            flight.complete(value);
+            return copy.apply(value);
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** Versão assíncrona: quem chega durante a leitura recebe um future ligado ao da leitura em andamento. */
+    CompletableFuture<V> executeAsync(String key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            collapsed.increment();
+            return running.thenApply(copy);
+        }
+        try {
+            call.get().whenComplete((value, failure) -> {
+                inFlight.remove(key, flight);
+                if (failure != null) {
+                    flight.completeExceptionally(unwrap(failure));
+                } else {
+                    flight.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+        }
+        return flight.thenApply(copy);
+    }
+
+    /**
+     * Chamado quando uma gravação da chave termina: quem chegar a partir de agora faz uma leitura nova. Quem já
+     * esperava pela leitura antiga continua com ela, já que chegou antes do fim da gravação.
+     */
+    void forget(String key) {
+        if (key != null) {
+            inFlight.remove(key);
+        }
+    }
+
+    /** Como {@link #forget}, para todas as chaves; para buscas cuja chave a gravação não identifica. */
+    void forgetAll() {
+        inFlight.clear();
+    }
+
+    private static <V> V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+}
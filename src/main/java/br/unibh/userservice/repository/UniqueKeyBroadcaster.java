@@ -0,0 +1,20 @@
+package br.unibh.userservice.repository;
+
+import java.util.function.Consumer;
+
+/**
+ * Canal pelo qual uma réplica avisa as demais que um usuário ganhou username/email novos, para que entrem no
+ * {@link UniqueKeyFilter} delas. Separado do {@link UserCacheInvalidationBroadcaster}: um cadastro não invalida
+ * cache nenhum, e uma troca de username/email já é invalidada pelo repositório.
+ * <p>
+ * A implementação padrão é {@link LoopbackUniqueKeyBroadcaster}, que só entrega dentro do processo. Uma
+ * implementação distribuída substitui a padrão ao ser registrada como {@code @Primary}.
+ */
+public interface UniqueKeyBroadcaster {
+
+    /** Anuncia o usuário com username/email novos. Não pode lançar exceção: a gravação já foi feita. */
+    void publish(String userId);
+
+    /** Registra quem recebe os ids anunciados, inclusive os publicados pela própria réplica. */
+    void subscribe(Consumer<String> listener);
+}
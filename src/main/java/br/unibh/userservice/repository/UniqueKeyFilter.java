@@ -0,0 +1,257 @@
+package br.unibh.userservice.repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserUniqueKey;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+
+/**
+ * Filtro de Bloom dos usernames e emails (normalizados) existentes, consultado antes das buscas pelos índices de
+ * username e email. Um "não" do filtro é definitivo: {@code findByUsername}, {@code findByEmail} e os
+ * {@code existsBy*} respondem sem ir ao DynamoDB, o que cobre a maioria das verificações de cadastro (nomes
+ * livres) e os logins de contas inexistentes.
+ * <p>
+ * O filtro é montado na subida por um scan paralelo ({@code users.keyFilter.scanSegments} segmentos) e remontado a
+ * cada {@code users.keyFilter.rebuildMillis}, o que descarta os nomes que deixaram de existir. Até o primeiro scan
+ * terminar, ou se ele falhar, toda consulta segue para o DynamoDB. Cadastros e trocas de username/email entram no
+ * filtro desta réplica na hora e são anunciados pelo {@link UniqueKeyBroadcaster}; as outras réplicas
+ * leem o username e o email do usuário anunciado. Por isso, com várias réplicas, o filtro só deve ser ligado com
+ * um broadcaster distribuído: sem ele, um usuário recém-cadastrado em outra réplica seria dado como inexistente
+ * aqui até a próxima remontagem.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class UniqueKeyFilter implements ApplicationRunner, DisposableBean {
+
+    private final DynamoDbClient dynamoDbClient;
+    private final UniqueKeyBroadcaster broadcaster;
+    private final String tableName;
+    private final boolean enabled;
+    private final long expectedKeys;
+    private final double falsePositiveRate;
+    private final int scanSegments;
+    private final long rebuildMillis;
+    /** Uma thread para as remontagens e outra para os anúncios de outras réplicas, que não esperam o scan. */
+    private final ScheduledExecutorService executor;
+    /** Ids anunciados por esta réplica, para não reler o próprio anúncio quando ele volta pelo broadcaster. */
+    private final Cache<String, Boolean> announcedHere;
+    private final Counter usernameNegatives;
+    private final Counter emailNegatives;
+
+    /** Filtro consultado; {@code null} até o primeiro scan terminar. */
+    private volatile BloomFilter current;
+    /** Filtro em montagem; enquanto existe, as inclusões vão também para ele. */
+    private volatile BloomFilter building;
+
+    public UniqueKeyFilter(DynamoDbClient dynamoDbClient, UniqueKeyBroadcaster broadcaster,
+                           MeterRegistry meterRegistry,
+                           @Value("${aws.dynamodb.tableName}") String tableName,
+                           @Value("${users.keyFilter.enabled:false}") boolean enabled,
+                           @Value("${users.keyFilter.expectedKeys:2000000}") long expectedKeys,
+                           @Value("${users.keyFilter.falsePositiveRate:0.01}") double falsePositiveRate,
+                           @Value("${users.keyFilter.scanSegments:8}") int scanSegments,
+                           @Value("${users.keyFilter.rebuildMillis:3600000}") long rebuildMillis) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.broadcaster = broadcaster;
+        this.tableName = tableName;
+        this.enabled = enabled;
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+        this.scanSegments = scanSegments;
+        this.rebuildMillis = rebuildMillis;
+        this.executor = enabled
+                ? Executors.newScheduledThreadPool(2, new CustomizableThreadFactory("user-key-filter-"))
+                : null;
+        this.announcedHere = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .maximumSize(100_000)
+                .build();
+        this.usernameNegatives = meterRegistry.counter("users.keyFilter.negatives", "key", "username");
+        this.emailNegatives = meterRegistry.counter("users.keyFilter.negatives", "key", "email");
+        if (enabled) {
+            broadcaster.subscribe(this::onUserChanged);
+        }
+    }
+
+    /** Roda logo depois do {@code DynamoDbTableInitializer}; o scan é feito em segundo plano. */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            executor.scheduleWithFixedDelay(this::rebuild, 0, rebuildMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** {@code false} quando o username com certeza não existe. */
+    public boolean mightContainUsername(String username) {
+        return mightContain(UserUniqueKey.USERNAME_PREFIX, username, usernameNegatives);
+    }
+
+    /** {@code false} quando o email com certeza não existe. */
+    public boolean mightContainEmail(String email) {
+        return mightContain(UserUniqueKey.EMAIL_PREFIX, email, emailNegatives);
+    }
+
+    private boolean mightContain(String prefix, String value, Counter negatives) {
+        BloomFilter filter = current;
+        if (filter == null || value == null || value.isBlank()) {
+            return true;
+        }
+        if (filter.mightContain(prefix + DynamoDbUserRepository.normalize(value))) {
+            return true;
+        }
+        negatives.increment();
+        return false;
+    }
+
+    /**
+     * Inclui o username e o email gravados e anuncia o usuário às outras réplicas. Chamado depois de cadastros e
+     * trocas de username/email já confirmados pelo DynamoDB.
+     */
+    public void added(User user) {
+        if (!enabled) {
+            return;
+        }
+        add(user.getUsername(), user.getEmail());
+        if (user.getId() != null) {
+            announcedHere.put(user.getId(), Boolean.TRUE);
+            broadcaster.publish(user.getId());
+        }
+    }
+
+    private void add(String username, String email) {
+        // building antes de current: se a montagem terminar entre as duas leituras, current já é o filtro novo
+        BloomFilter next = building;
+        BloomFilter filter = current;
+        for (String key : keysOf(username, email)) {
+            if (next != null) {
+                next.add(key);
+            }
+            if (filter != null) {
+                filter.add(key);
+            }
+        }
+    }
+
+    private static List<String> keysOf(String username, String email) {
+        List<String> keys = new ArrayList<>(2);
+        if (username != null) {
+            keys.add(UserUniqueKey.USERNAME_PREFIX + DynamoDbUserRepository.normalize(username));
+        }
+        if (email != null) {
+            keys.add(UserUniqueKey.EMAIL_PREFIX + DynamoDbUserRepository.normalize(email));
+        }
+        return keys;
+    }
+
+    /** Usuário alterado em outra réplica: lê o username e o email atuais e os inclui, fora da thread de quem anunciou. */
+    private void onUserChanged(String userId) {
+        if (announcedHere.asMap().remove(userId) == null) {
+            executor.execute(() -> addFromTable(userId));
+        }
+    }
+
+    private void addFromTable(String userId) {
+        try {
+            var response = dynamoDbClient.getItem(b -> b
+                    .tableName(tableName)
+                    .key(UserWriteRequests.idKey(userId))
+                    .consistentRead(true)
+                    .projectionExpression("#u, #e")
+                    .expressionAttributeNames(Map.of("#u", "username", "#e", "email")));
+            if (response.hasItem()) {
+                add(stringOf(response.item().get("username")), stringOf(response.item().get("email")));
+            }
+        } catch (DynamoDbException e) {
+            log.warn("Falha ao incluir no filtro de usernames e emails o usuário {}: {}", userId, e.getMessage());
+        }
+    }
+
+    void rebuild() {
+        long start = System.nanoTime();
+        BloomFilter fresh = new BloomFilter(expectedKeys, falsePositiveRate);
+        building = fresh;
+        ExecutorService pool = Executors.newFixedThreadPool(scanSegments, new CustomizableThreadFactory("user-key-filter-scan-"));
+        try {
+            List<CompletableFuture<Long>> segments = IntStream.range(0, scanSegments)
+                    .mapToObj(segment -> CompletableFuture.supplyAsync(() -> scanSegment(fresh, segment), pool))
+                    .toList();
+            long users = segments.stream().mapToLong(CompletableFuture::join).sum();
+            current = fresh;
+            log.info("Filtro de usernames e emails montado com {} usuários em {} ms.", users, (System.nanoTime() - start) / 1_000_000);
+            if (users * 2 > expectedKeys) {
+                log.warn("{} usuários passam de users.keyFilter.expectedKeys={}; a taxa de falso positivo vai subir.", users, expectedKeys);
+            }
+        } catch (CompletionException e) {
+            log.warn("Falha ao montar o filtro de usernames e emails: {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        } finally {
+            building = null;
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Scan com leitura consistente, para não deixar de fora um usuário gravado logo antes da montagem começar.
+     * Lê só username e email; os itens de reserva não têm esses atributos e ficam de fora.
+     */
+    private long scanSegment(BloomFilter filter, int segment) {
+        long users = 0;
+        var items = dynamoDbClient.scanPaginator(b -> b
+                .tableName(tableName)
+                .segment(segment)
+                .totalSegments(scanSegments)
+                .consistentRead(true)
+                .projectionExpression("#u, #e")
+                .expressionAttributeNames(Map.of("#u", "username", "#e", "email")))
+                .items();
+        for (Map<String, AttributeValue> item : items) {
+            String username = stringOf(item.get("username"));
+            if (username == null) {
+                continue;
+            }
+            for (String key : keysOf(username, stringOf(item.get("email")))) {
+                filter.add(key);
+            }
+            users++;
+        }
+        return users;
+    }
+
+    private static String stringOf(AttributeValue value) {
+        return value != null ? value.s() : null;
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package br.unibh.userservice.repository;
+
+import java.util.function.Consumer;
+
+/**
+ * Canal pelo qual uma réplica avisa as demais que um usuário mudou e deve sair do cache.
+ * <p>
+ * A implementação padrão é {@link LoopbackUserCacheInvalidationBroadcaster}, que só entrega dentro do processo.
+ * Uma implementação distribuída (SNS, Redis, DynamoDB Streams) substitui a padrão ao ser registrada como
+ * {@code @Primary}; sem ela, as outras réplicas enxergam a mudança quando a entrada expira.
+ */
+public interface UserCacheInvalidationBroadcaster {
+
+    /** Anuncia que o usuário mudou. Não pode lançar exceção: a gravação já foi feita. */
+    void publish(String userId);
+
+    /** Registra quem recebe os ids anunciados, inclusive os publicados pela própria réplica. */
+    void subscribe(Consumer<String> listener);
+}
@@ -0,0 +1,50 @@
+package br.unibh.userservice.repository;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
+
+/**
+ * Atributos do usuário que podem ser alterados com {@link UserRepository#updateFields}.
+ * O valor de cada campo é convertido pelo próprio schema da tabela, então o formato gravado
+ * é o mesmo de um {@code putItem} do usuário inteiro.
+ */
+public enum UserField {
+
+    USERNAME("username", (user, value) -> user.setUsername((String) value)),
+    EMAIL("email", (user, value) -> user.setEmail((String) value)),
+    PASSWORD("password", (user, value) -> user.setPassword((String) value)),
+    PASSWORD_HISTORY("passwordHistory", (user, value) -> user.setPasswordHistory(castList(value))),
+    ROLE("role", (user, value) -> user.setRole((UserRole) value)),
+    STATUS("status", (user, value) -> user.setStatus((UserState) value));
+
+    private final String attributeName;
+    private final BiConsumer<User, Object> setter;
+
+    UserField(String attributeName, BiConsumer<User, Object> setter) {
+        this.attributeName = attributeName;
+        this.setter = setter;
+    }
+
+    public String attributeName() {
+        return attributeName;
+    }
+
+    /** Aplica o valor no usuário; lança {@link ClassCastException} se o tipo não corresponder ao campo. */
+    public void apply(User user, Object value) {
+        setter.accept(user, value);
+    }
+
+    /** Username e email têm reserva própria e só podem ser trocados junto com ela. */
+    public boolean isUniqueKey() {
+        return this == USERNAME || this == EMAIL;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> castList(Object value) {
+        return (List<String>) value;
+    }
+}
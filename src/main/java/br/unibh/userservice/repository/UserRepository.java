@@ -1,9 +1,18 @@
 package br.unibh.userservice.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
+import br.unibh.userservice.entity.UserView;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 /**
  * Interface que define as operações de persistência para a entidade User.
@@ -13,11 +22,118 @@ public interface UserRepository {
     /**
      * Salva um usuário novo ou atualiza um existente.
      * Atribui/atualiza os timestamps de criação e atualização.
+     * A gravação é condicionada à versão lida do usuário.
      *
      * @param user O objeto User a ser salvo.
+     * @throws br.unibh.userservice.exception.UserExceptions.ConcurrentUpdateException se o usuário foi alterado depois da leitura.
      */
     User save(User user);
 
+    /**
+     * Cria um novo usuário reservando username e email na mesma transação.
+     *
+     * @param user O novo usuário, com username e email já normalizados.
+     * @throws br.unibh.userservice.exception.UserExceptions.UserAlreadyExistsException se o username ou o email já estiverem reservados.
+     */
+    User create(User user);
+
+    /**
+     * Grava vários usuários novos, cada um com suas duas reservas na mesma transação condicional do
+     * {@link #create}, com as transações enviadas em paralelo. Cada usuário é gravado inteiro ou não é gravado,
+     * e uma reserva feita ao mesmo tempo por outra requisição nunca é sobrescrita. Transações canceladas por
+     * conflito ou throttling são reenviadas com backoff.
+     *
+     * @param users Os novos usuários, com username e email já normalizados.
+     * @return a falha de cada usuário não gravado, por id: {@code UserAlreadyExistsException} se o username ou o
+     *         email já estiverem reservados, ou {@code ServiceOverloadedException} se as tentativas se esgotaram.
+     */
+    Map<String, RuntimeException> createAll(List<User> users);
+
+    /**
+     * Consulta em lote quais reservas já existem.
+     *
+     * @param uniqueKeyIds Ids de reserva ({@code USERNAME#...}/{@code EMAIL#...}).
+     * @return o subconjunto dos ids informados que já está reservado.
+     */
+    Set<String> findReservedUniqueKeys(Collection<String> uniqueKeyIds);
+
+    /**
+     * Busca vários usuários com {@code BatchGetItem}, em blocos de 100 chaves disparados em paralelo, lendo só os
+     * atributos de {@link UserView}.
+     *
+     * @param ids Ids dos usuários; repetições e ids de reserva são ignorados.
+     * @return os usuários encontrados, na ordem dos ids informados; ids inexistentes são omitidos.
+     */
+    List<UserView> findAllByIds(Collection<String> ids);
+
+    /**
+     * Busca usuários completos (com senha e histórico) com {@code BatchGetItem}. Usado pelo
+     * {@link br.unibh.userservice.service.UserBatchLoader}, que junta buscas por id de requisições diferentes.
+     *
+     * @param ids Ids dos usuários; repetições e ids de reserva são ignorados.
+     * @return os usuários encontrados, por id; ids inexistentes ficam de fora.
+     */
+    Map<String, User> findUsersByIds(Collection<String> ids);
+
+    /**
+     * Usuário já em memória, sem ir ao DynamoDB. Só um repositório com cache tem o que devolver.
+     */
+    default Optional<User> findCachedById(String id) {
+        return Optional.empty();
+    }
+
+    /**
+     * Atualiza apenas os campos informados com um único {@code UpdateItem}, sem ler nem regravar o item inteiro.
+     * Também atualiza {@code updatedAt}.
+     *
+     * @param id O ID do usuário.
+     * @param changes Os novos valores, por campo. Username e email não são aceitos aqui.
+     * @param revokeTokens incrementa a versão de token do usuário no mesmo update.
+     * @return o usuário completo, como ficou gravado após o update.
+     * @throws br.unibh.userservice.exception.UserExceptions.UserNotFoundException se o usuário não existir.
+     */
+    User updateFields(String id, Map<UserField, Object> changes, boolean revokeTokens);
+
+    /**
+     * Igual a {@link #updateFields(String, Map, boolean)}, mas só grava se o usuário ainda estiver na versão
+     * de {@code current}. Use quando os novos valores foram calculados a partir do usuário lido.
+     *
+     * @throws br.unibh.userservice.exception.UserExceptions.ConcurrentUpdateException se o usuário foi alterado depois da leitura.
+     */
+    User updateFields(User current, Map<UserField, Object> changes, boolean revokeTokens);
+
+    /**
+     * Troca o username ou o email do usuário e a reserva correspondente na mesma transação,
+     * gravando apenas os atributos alterados.
+     *
+     * @param user O usuário com o valor atual; recebe o novo valor se a transação for concluída.
+     * @param field {@link UserField#USERNAME} ou {@link UserField#EMAIL}.
+     * @param newValue O novo valor, já normalizado.
+     * @param revokeTokens incrementa a versão de token do usuário na mesma transação.
+     * @throws br.unibh.userservice.exception.UserExceptions.UserAlreadyExistsException se o novo valor já estiver reservado.
+     * @throws br.unibh.userservice.exception.UserExceptions.ConcurrentUpdateException se o usuário foi alterado depois da leitura.
+     */
+    User updateUniqueField(User user, UserField field, String newValue, boolean revokeTokens);
+
+    /**
+     * Soma uma senha errada ao contador {@code failedLogins} do usuário com um {@code UpdateItem} atômico, então
+     * falhas em réplicas diferentes entram na mesma conta. Se a última falha gravada é anterior a
+     * {@code windowStart}, o contador recomeça em 1. Não altera a versão do usuário.
+     *
+     * @param user O usuário lido no login.
+     * @param windowStart Falhas anteriores a este instante não contam mais.
+     * @return o contador depois da soma.
+     * @throws br.unibh.userservice.exception.UserExceptions.UserNotFoundException se o usuário não existir.
+     */
+    long recordFailedLogin(User user, LocalDateTime windowStart);
+
+    /**
+     * Zera o contador de senhas erradas, depois de um login bem-sucedido.
+     *
+     * @throws br.unibh.userservice.exception.UserExceptions.UserNotFoundException se o usuário não existir.
+     */
+    void clearFailedLogins(String id);
+
     /**
      * Busca um usuário pelo seu ID (chave de partição).
      *
@@ -26,6 +142,16 @@ public interface UserRepository {
      */
     Optional<User> findById(String id);
 
+    /**
+     * Busca o usuário pelo id com {@code GetItem} de leitura consistente, sem cache. Só se junta a outra leitura
+     * consistente em andamento que começou depois da última gravação desta réplica. Para autenticação e autorização, que não podem decidir com um usuário bloqueado, removido,
+     * rebaixado ou com hash de senha antigo.
+     *
+     * @param id O ID único do usuário.
+     * @return um Optional contendo o usuário se encontrado, ou um Optional vazio caso contrário.
+     */
+    Optional<User> findByIdConsistent(String id);
+
     /**
      * Deleta um usuário da base de dados pelo seu ID.
      *
@@ -34,13 +160,77 @@ public interface UserRepository {
      */
     Optional<User> deleteById(String id);
 
+    /**
+     * Deleta o usuário e libera suas reservas de username e email, desde que o usuário ainda tenha o username e o
+     * email informados.
+     *
+     * @param user O usuário a ser deletado.
+     * @throws br.unibh.userservice.exception.UserExceptions.ConcurrentUpdateException se o username ou o email foi
+     *         trocado depois da leitura.
+     */
+    void delete(User user);
+
+    /**
+     * Carrega todos os usuários em memória. Para tabelas grandes, percorra com {@link #findSegmentPage}.
+     */
     List<User> findAll();
 
+    /**
+     * Lê uma página de um segmento do scan paralelo, projetando só os atributos de {@link UserView}.
+     *
+     * @param segment       Segmento lido, de {@code 0} a {@code totalSegments - 1}.
+     * @param totalSegments Número de segmentos em que a tabela foi dividida.
+     * @param lastKey       Id do último item lido no segmento, ou {@code null} para começar do início.
+     * @param limit         Máximo de itens avaliados pelo DynamoDB nesta página.
+     * @return a página; {@code lastEvaluatedKey} nulo indica o fim do segmento. Pode vir vazia mesmo sem ser a
+     *         última, quando todos os itens avaliados eram reservas.
+     */
+    Page<UserView> findSegmentPage(int segment, int totalSegments, String lastKey, int limit);
+
+    /**
+     * Lê uma página de usuários com scan na tabela, ignorando as reservas e projetando só os atributos de
+     * {@link UserView}.
+     *
+     * @param exclusiveStartKey {@code lastEvaluatedKey} da página anterior, ou {@code null} na primeira.
+     */
+    Page<UserView> findPage(Map<String, AttributeValue> exclusiveStartKey, int limit);
+
+    /**
+     * Lê uma página dos usuários com o status e/ou o papel informados, do cadastro mais recente para o mais
+     * antigo. A consulta vai ao {@code status-index} (ou ao {@code role-index} quando só o papel é informado)
+     * e lê apenas os itens que atendem ao filtro, com os atributos de {@link UserView}.
+     *
+     * @param exclusiveStartKey {@code lastEvaluatedKey} da página anterior, ou {@code null} na primeira.
+     */
+    Page<UserView> findPageByStatusOrRole(UserState status, UserRole role, Map<String, AttributeValue> exclusiveStartKey, int limit);
+
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
 
+    /**
+     * Como {@link #findByUsername}, mas sempre no índice, nunca no cache. O item do índice (projeção ALL) é o
+     * usuário completo, e a autenticação confere a senha com ele, sem ler o usuário de novo.
+     */
+    default Optional<User> findByUsernameUncached(String username) {
+        return findByUsername(username);
+    }
+
+    /**
+     * @see #findByUsernameUncached(String)
+     */
+    default Optional<User> findByEmailUncached(String email) {
+        return findByEmail(email);
+    }
+
+    /**
+     * Indica se o email (normalizado) está reservado, pela reserva {@code EMAIL#}, sem consultar o índice de email.
+     */
     boolean existsByEmail(String login);
 
+    /**
+     * @see #existsByEmail(String)
+     */
+
     boolean existsByUsername(String username);
 
 
@@ -0,0 +1,362 @@
+package br.unibh.userservice.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserUniqueKey;
+import br.unibh.userservice.exception.UserExceptions;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.Delete;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+/**
+ * Monta as escritas parciais do usuário ({@code UpdateItem} e {@code TransactWriteItems}) e traduz as falhas
+ * de condição para as exceções de domínio. Compartilhado pelos repositórios síncrono e assíncrono, que só
+ * diferem no cliente que envia a requisição.
+ */
+final class UserWriteRequests {
+
+    private static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
+    private static final Set<String> TRANSIENT_CANCELLATIONS = Set.of(
+            "TransactionConflict", "ThrottlingError", "ProvisionedThroughputExceeded");
+    private static final String USER_EXISTS = "attribute_exists(id) AND attribute_exists(username)";
+
+    private final String tableName;
+    private final TableSchema<User> userSchema;
+    private final TableSchema<UserUniqueKey> uniqueKeySchema;
+
+    UserWriteRequests(String tableName, TableSchema<User> userSchema, TableSchema<UserUniqueKey> uniqueKeySchema) {
+        this.tableName = tableName;
+        this.userSchema = userSchema;
+        this.uniqueKeySchema = uniqueKeySchema;
+    }
+
+    /**
+     * {@code UpdateItem} dos campos alterados. Com {@code current}, só é aplicado se a versão gravada ainda
+     * for a que foi lida.
+     */
+    UpdateItemRequest updateFields(String id, User current, Map<UserField, Object> changes, boolean revokeTokens) {
+        if (changes.keySet().stream().anyMatch(UserField::isUniqueKey)) {
+            throw new IllegalArgumentException("Username e email devem ser alterados com updateUniqueField.");
+        }
+        UpdateClauses clauses = updateClauses(current, changes, revokeTokens);
+
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(idKey(id))
+                .updateExpression(clauses.expression())
+                .conditionExpression(clauses.condition(USER_EXISTS))
+                .expressionAttributeNames(clauses.names())
+                .expressionAttributeValues(clauses.values())
+                .returnValues(ReturnValue.ALL_NEW)
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build();
+    }
+
+    /**
+     * {@code UpdateItem} que soma uma senha errada ao contador do usuário. Se a última falha gravada é anterior a
+     * {@code windowStart}, o contador recomeça em 1, condicionado a ninguém ter gravado uma falha mais nova nesse
+     * meio tempo; senão a falha é somada com {@code ADD}, que não depende do valor lido. Nenhum dos dois mexe em
+     * {@code version} ou {@code updatedAt}.
+     */
+    UpdateItemRequest recordFailedLogin(String id, LocalDateTime now, LocalDateTime windowStart, boolean restart) {
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":one", AttributeValue.fromN("1"));
+        values.put(":now", encodeFailedLoginAt(now));
+        String condition = USER_EXISTS;
+        String expression;
+        if (restart) {
+            values.put(":windowStart", encodeFailedLoginAt(windowStart));
+            condition += " AND (attribute_not_exists(#lastFailedLoginAt) OR #lastFailedLoginAt < :windowStart)";
+            expression = "SET #failedLogins = :one, #lastFailedLoginAt = :now";
+        } else {
+            expression = "ADD #failedLogins :one SET #lastFailedLoginAt = :now";
+        }
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(idKey(id))
+                .updateExpression(expression)
+                .conditionExpression(condition)
+                .expressionAttributeNames(Map.of("#failedLogins", "failedLogins", "#lastFailedLoginAt", "lastFailedLoginAt"))
+                .expressionAttributeValues(values)
+                .returnValues(ReturnValue.UPDATED_NEW)
+                .build();
+    }
+
+    /** Zera o contador de senhas erradas depois de um login bem-sucedido. */
+    UpdateItemRequest clearFailedLogins(String id) {
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(idKey(id))
+                .updateExpression("REMOVE #failedLogins, #lastFailedLoginAt")
+                .conditionExpression(USER_EXISTS)
+                .expressionAttributeNames(Map.of("#failedLogins", "failedLogins", "#lastFailedLoginAt", "lastFailedLoginAt"))
+                .build();
+    }
+
+    static long failedLoginsOf(Map<String, AttributeValue> attributes) {
+        AttributeValue value = attributes.get("failedLogins");
+        return value != null && value.n() != null ? Long.parseLong(value.n()) : 0L;
+    }
+
+    /** A falha de login precisa recomeçar o contador quando a última gravada já saiu da janela. */
+    static boolean restartsFailedLogins(User user, LocalDateTime windowStart) {
+        return user.getLastFailedLoginAt() == null || user.getLastFailedLoginAt().isBefore(windowStart);
+    }
+
+    private AttributeValue encodeFailedLoginAt(LocalDateTime instant) {
+        User values = new User();
+        values.setLastFailedLoginAt(instant);
+        return userSchema.itemToMap(values, List.of("lastFailedLoginAt")).get("lastFailedLoginAt");
+    }
+
+    User toUser(Map<String, AttributeValue> attributes) {
+        return userSchema.mapToItem(attributes);
+    }
+
+    /**
+     * Transação que remove o usuário e as reservas do username e do email lidos. A remoção do usuário só vale se
+     * ele ainda tiver esse username e esse email: se uma troca foi gravada depois da leitura, a transação é
+     * cancelada em vez de apagar a reserva antiga e deixar a nova sem dono.
+     */
+    TransactWriteItemsRequest delete(User user) {
+        Delete deleteUser = Delete.builder()
+                .tableName(tableName)
+                .key(idKey(user.getId()))
+                .conditionExpression("#username = :username AND #email = :email")
+                .expressionAttributeNames(Map.of("#username", "username", "#email", "email"))
+                .expressionAttributeValues(Map.of(
+                        ":username", AttributeValue.fromS(user.getUsername()),
+                        ":email", AttributeValue.fromS(user.getEmail())))
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build();
+        return TransactWriteItemsRequest.builder()
+                .transactItems(
+                        TransactWriteItem.builder().delete(deleteUser).build(),
+                        TransactWriteItem.builder().delete(Delete.builder()
+                                .tableName(tableName)
+                                .key(idKey(UserUniqueKey.usernameKey(user.getUsername())))
+                                .build()).build(),
+                        TransactWriteItem.builder().delete(Delete.builder()
+                                .tableName(tableName)
+                                .key(idKey(UserUniqueKey.emailKey(user.getEmail())))
+                                .build()).build())
+                .build();
+    }
+
+    /**
+     * Transação que troca o username ou o email do usuário e move a reserva correspondente.
+     */
+    UniqueFieldUpdate updateUniqueField(User user, UserField field, String newValue, boolean revokeTokens) {
+        if (!field.isUniqueKey()) {
+            throw new IllegalArgumentException("Campo sem reserva: " + field);
+        }
+        boolean username = field == UserField.USERNAME;
+        String previousValue = username ? user.getUsername() : user.getEmail();
+        UpdateClauses clauses = updateClauses(user, Map.of(field, newValue), revokeTokens);
+
+        Map<String, AttributeValue> values = new HashMap<>(clauses.values());
+        values.put(":previous", AttributeValue.fromS(previousValue));
+        Update update = Update.builder()
+                .tableName(tableName)
+                .key(idKey(user.getId()))
+                .updateExpression(clauses.expression())
+                .conditionExpression(clauses.condition("#" + field.attributeName() + " = :previous"))
+                .expressionAttributeNames(clauses.names())
+                .expressionAttributeValues(values)
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build();
+
+        UserUniqueKey reservation = username
+                ? UserUniqueKey.forUsername(newValue, user.getId())
+                : UserUniqueKey.forEmail(newValue, user.getId());
+        Put reserve = Put.builder()
+                .tableName(tableName)
+                .item(uniqueKeySchema.itemToMap(reservation, true))
+                .conditionExpression("attribute_not_exists(id)")
+                .build();
+
+        Delete release = Delete.builder()
+                .tableName(tableName)
+                .key(idKey(username ? UserUniqueKey.usernameKey(previousValue) : UserUniqueKey.emailKey(previousValue)))
+                .build();
+
+        var request = TransactWriteItemsRequest.builder()
+                .transactItems(
+                        TransactWriteItem.builder().update(update).build(),
+                        TransactWriteItem.builder().put(reserve).build(),
+                        TransactWriteItem.builder().delete(release).build())
+                .build();
+
+        // Ordem das ações: 0 = usuário, 1 = nova reserva, 2 = reserva antiga
+        return new UniqueFieldUpdate(request, field, newValue, revokeTokens, clauses.updatedAt(),
+                username ? 1 : -1, username ? -1 : 1);
+    }
+
+    /**
+     * Monta o {@code SET} dos campos alterados mais {@code updatedAt} e {@code version}. Os valores passam pelo
+     * schema da tabela, então cada atributo é gravado no mesmo formato de um {@code putItem}; valores nulos viram
+     * {@code REMOVE}.
+     */
+    private UpdateClauses updateClauses(User current, Map<UserField, Object> changes, boolean revokeTokens) {
+        User values = new User();
+        List<String> attributes = new ArrayList<>();
+        changes.forEach((field, value) -> {
+            field.apply(values, value);
+            attributes.add(field.attributeName());
+        });
+        LocalDateTime updatedAt = LocalDateTime.now();
+        values.setUpdatedAt(updatedAt);
+        attributes.add("updatedAt");
+
+        Map<String, AttributeValue> encoded = userSchema.itemToMap(values, attributes);
+        List<String> set = new ArrayList<>();
+        List<String> remove = new ArrayList<>();
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> expressionValues = new HashMap<>();
+        for (String attribute : attributes) {
+            names.put("#" + attribute, attribute);
+            AttributeValue value = encoded.get(attribute);
+            if (value == null || Boolean.TRUE.equals(value.nul())) {
+                remove.add("#" + attribute);
+            } else {
+                set.add("#" + attribute + " = :" + attribute);
+                expressionValues.put(":" + attribute, value);
+            }
+        }
+        names.put("#version", "version");
+        set.add("#version = if_not_exists(#version, :zero) + :one");
+        expressionValues.put(":zero", AttributeValue.fromN("0"));
+        expressionValues.put(":one", AttributeValue.fromN("1"));
+        if (revokeTokens) {
+            names.put("#tokenVersion", "tokenVersion");
+            set.add("#tokenVersion = if_not_exists(#tokenVersion, :zero) + :one");
+        }
+
+        String versionCondition = null;
+        if (current != null && current.getVersion() == null) {
+            versionCondition = "attribute_not_exists(#version)";
+        } else if (current != null) {
+            versionCondition = "#version = :expectedVersion";
+            expressionValues.put(":expectedVersion", AttributeValue.fromN(current.getVersion().toString()));
+        }
+
+        String expression = "SET " + String.join(", ", set)
+                + (remove.isEmpty() ? "" : " REMOVE " + String.join(", ", remove));
+        return new UpdateClauses(expression, versionCondition, names, expressionValues, updatedAt);
+    }
+
+    /**
+     * Traduz a falha de uma escrita condicional: reservas violadas viram conflito de username/email e a
+     * condição do próprio usuário vira usuário inexistente ou versão desatualizada. Índices negativos indicam
+     * que a reserva não faz parte da transação. Falhas sem tradução são devolvidas como estão.
+     */
+    static RuntimeException translate(Throwable failure, boolean existingUser, int usernameAction, int emailAction) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause()
+                : failure;
+
+        if (cause instanceof ConditionalCheckFailedException e) {
+            return conflictOrNotFound(e.hasItem() ? e.item() : null);
+        }
+        if (cause instanceof TransactionCanceledException e) {
+            List<CancellationReason> reasons = e.hasCancellationReasons() ? e.cancellationReasons() : List.of();
+            boolean usernameTaken = failed(reasons, usernameAction);
+            boolean emailTaken = failed(reasons, emailAction);
+
+            if (usernameTaken && emailTaken) {
+                return new UserExceptions.UserAlreadyExistsException("Email e Username já cadastrados.");
+            }
+            if (emailTaken) {
+                return new UserExceptions.UserAlreadyExistsException("Email já cadastrado.");
+            }
+            if (usernameTaken) {
+                return new UserExceptions.UserAlreadyExistsException("Username já cadastrado.");
+            }
+            if (existingUser && failed(reasons, 0)) {
+                return conflictOrNotFound(reasons.get(0).hasItem() ? reasons.get(0).item() : null);
+            }
+        }
+        return cause instanceof RuntimeException runtimeException
+                ? runtimeException
+                : new CompletionException(cause);
+    }
+
+    /**
+     * A transação foi cancelada só por conflito com outra transação ou por throttling, sem nenhuma condição
+     * violada; reenviá-la pode dar certo.
+     */
+    static boolean isTransient(TransactionCanceledException e) {
+        List<CancellationReason> reasons = e.hasCancellationReasons() ? e.cancellationReasons() : List.of();
+        return reasons.stream().noneMatch(reason -> CONDITIONAL_CHECK_FAILED.equals(reason.code()))
+                && reasons.stream().anyMatch(reason -> TRANSIENT_CANCELLATIONS.contains(reason.code()));
+    }
+
+    static UserExceptions.ConcurrentUpdateException concurrentUpdate() {
+        return new UserExceptions.ConcurrentUpdateException("O usuário foi alterado por outra requisição. Tente novamente.");
+    }
+
+    static long nextVersion(Long version) {
+        return version == null ? 1L : version + 1;
+    }
+
+    static Map<String, AttributeValue> idKey(String id) {
+        return Map.of("id", AttributeValue.fromS(id));
+    }
+
+    /** Distingue, pelo item devolvido na falha da condição, um usuário removido de uma versão desatualizada. */
+    private static RuntimeException conflictOrNotFound(Map<String, AttributeValue> currentItem) {
+        if (currentItem == null || !currentItem.containsKey("username")) {
+            return new UserExceptions.UserNotFoundException("Usuário não encontrado para atualização.");
+        }
+        return concurrentUpdate();
+    }
+
+    private static boolean failed(List<CancellationReason> reasons, int action) {
+        return action >= 0 && action < reasons.size()
+                && CONDITIONAL_CHECK_FAILED.equals(reasons.get(action).code());
+    }
+
+    record UniqueFieldUpdate(TransactWriteItemsRequest request, UserField field, String newValue,
+                             boolean revokeTokens, LocalDateTime updatedAt, int usernameAction, int emailAction) {
+
+        /** Reflete no usuário lido o que a transação gravou. */
+        User applyTo(User user) {
+            field.apply(user, newValue);
+            user.setUpdatedAt(updatedAt);
+            user.setVersion(nextVersion(user.getVersion()));
+            if (revokeTokens) {
+                user.setTokenVersion(nextVersion(user.getTokenVersion()));
+            }
+            return user;
+        }
+
+        RuntimeException translate(Throwable failure) {
+            return UserWriteRequests.translate(failure, true, usernameAction, emailAction);
+        }
+    }
+
+    private record UpdateClauses(String expression, String versionCondition, Map<String, String> names,
+                                 Map<String, AttributeValue> values, LocalDateTime updatedAt) {
+
+        String condition(String base) {
+            return versionCondition == null ? base : base + " AND " + versionCondition;
+        }
+    }
+}
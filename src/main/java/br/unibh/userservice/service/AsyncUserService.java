@@ -0,0 +1,310 @@
+package br.unibh.userservice.service;
+
+import br.unibh.userservice.config.BoundedPasswordEncoder;
+import br.unibh.userservice.config.LoginThrottle;
+import br.unibh.userservice.config.TokenService;
+import br.unibh.userservice.dto.*;
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
+import br.unibh.userservice.exception.UserExceptions;
+import br.unibh.userservice.mapper.UserMapper;
+import br.unibh.userservice.repository.AsyncUserRepository;
+import br.unibh.userservice.repository.UserField;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Mesmas regras do {@link UserService}, compostas sobre o {@link AsyncUserRepository}: o DynamoDB é chamado pelo
+ * cliente assíncrono e o BCrypt roda no pool do {@link BoundedPasswordEncoder}. A única gravação bloqueante, a
+ * publicação de revogações de token, vai para o pool do {@code TokenRevocationRegistry}; nenhuma etapa bloqueia
+ * as threads que completam os futuros do SDK. As verificações que dependem do usuário logado são feitas antes
+ * da primeira etapa assíncrona, ainda na thread da requisição, onde o {@code SecurityContext} está disponível.
+ * <p>
+ * A autenticação do token, no {@code SecurityFilter}, acontece antes do controller, na thread da requisição. Com
+ * {@code jwt.token.stateless=true} ela não consulta o DynamoDB; fora disso, a busca do usuário vai pelo cliente
+ * assíncrono e a thread da requisição espera por ela.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "aws.dynamodb.async.enabled", havingValue = "true")
+public class AsyncUserService {
+
+    private final AsyncUserRepository userRepository;
+    private final UserService userService;
+    private final UserMapper userMapper;
+    private final UserPagination pagination;
+    private final TokenService tokenService;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final LoginThrottle loginThrottle;
+    private final String dummyPasswordHash;
+
+    public AsyncUserService(AsyncUserRepository userRepository, UserService userService, UserMapper userMapper,
+                            UserPagination pagination, TokenService tokenService, BoundedPasswordEncoder passwordEncoder,
+                            LoginThrottle loginThrottle) {
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.userMapper = userMapper;
+        this.pagination = pagination;
+        this.tokenService = tokenService;
+        this.passwordEncoder = passwordEncoder;
+        this.loginThrottle = loginThrottle;
+        this.dummyPasswordHash = passwordEncoder.encode("senha-inexistente");
+    }
+
+    public CompletableFuture<UserResponseDTO> createUser(CreateUserRequestDTO request) {
+        log.info("Criando novo usuário com username: {} e email: {}", request.username(), request.email());
+        return passwordEncoder.encodeAsync(request.password())
+                .thenCompose(encryptedPassword -> userRepository.create(userMapper.toEntity(request, encryptedPassword)))
+                .thenApply(userMapper::toResponseDto);
+    }
+
+    public CompletableFuture<Void> deleteUser(String id) {
+        UserService.checkAdminOrSelf(id);
+        log.info("Deletando usuário com id: {}", id);
+        return retryOnConflict(id, () -> findUserOrThrow(id)
+                        .thenCompose(user -> userRepository.delete(user).thenApply(ignored -> user)), 1)
+                .thenCompose(userService::revokeAllTokensAsync);
+    }
+
+    public CompletableFuture<UserUpdateResponseDTO> updateUserStatus(String id, UpdateStatusDTO req) {
+        log.info("Atualizando status do usuário com id: {} para {}", id, req.userState());
+        return userRepository.updateFields(id, Map.of(UserField.STATUS, req.userState()), true)
+                .thenCompose(user -> userService.updateResponseAsync(user, true));
+    }
+
+    public CompletableFuture<UserUpdateResponseDTO> updateRole(String id, UpdateRoleDTO request) {
+        log.info("Atualizando role do usuário com id: {}", id);
+        return userRepository.updateFields(id, Map.of(UserField.ROLE, request.role()), true)
+                .thenCompose(user -> userService.updateResponseAsync(user, true));
+    }
+
+    public CompletableFuture<UserUpdateResponseDTO> updateUsername(String id, UpdateUsernameDTO request) {
+        UserService.checkAdminOrSelf(id);
+        log.info("Atualizando username do usuário com id: {}" , id);
+        return updateUniqueField(id, UserField.USERNAME, request.username().trim().toLowerCase(), true);
+    }
+
+    public CompletableFuture<UserUpdateResponseDTO> updateEmail(String id, UpdateEmailDTO request) {
+        UserService.checkAdminOrSelf(id);
+        log.info("Atualizando email do usuário com id: {}", id);
+        return updateUniqueField(id, UserField.EMAIL, request.email().trim().toLowerCase(), false);
+    }
+
+    public CompletableFuture<UserUpdateResponseDTO> updatePassword(String id, UpdatePasswordDTO request) {
+        UserService.checkAdminOrSelf(id);
+        log.info("Atualizando senha do usuário com id: {}", id);
+        return retryOnConflict(id, () -> alteraSenha(id, request), 1)
+                .thenCompose(user -> userService.updateResponseAsync(user, true));
+    }
+
+    /**
+     * @see UserService#autenticar(AutheticationDTO, String)
+     */
+    public CompletableFuture<LoginResponseDTO> autenticar(AutheticationDTO request, String clientIp) {
+        loginThrottle.acquire(request.login(), clientIp);
+        return findForAuthentication(null, request.login()).thenCompose(found -> {
+            if (found.isEmpty()) {
+                // Mantém o tempo de resposta igual ao de uma senha errada, para não revelar quais logins existem
+                return passwordEncoder.matchesAsync(request.password(), dummyPasswordHash)
+                        .<LoginResponseDTO>thenApply(ignored -> { throw new UserExceptions.PasswordOrLoginInvalidException("Credenciais inválidas"); });
+            }
+            User user = found.get();
+            loginThrottle.checkNotLocked(user);
+            return passwordEncoder.matchesAsync(request.password(), user.getPassword()).thenCompose(matches -> {
+                if (!matches) {
+                    return recordFailedLogin(user).<LoginResponseDTO>thenApply(ignored -> {
+                        throw new UserExceptions.PasswordOrLoginInvalidException("Credenciais inválidas");
+                    });
+                }
+                if (LoginThrottle.hasFailedLogins(user)) {
+                    clearFailedLogins(user);
+                }
+                if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+                    rehash(user, request.password());
+                }
+                if (!userService.userValidStatus(user)) {
+                    log.warn("Usuário com login {} está inativo ou bloqueado.", request.login());
+                    throw new UserExceptions.UserStateException("Usuário com login " + request.login() + " está inativo ou bloqueado.");
+                }
+                String token = tokenService.generateToken(user);
+                return CompletableFuture.completedFuture(
+                        new LoginResponseDTO(token, user.getId(), user.getRole() , user.getUsername() , user.getEmail()));
+            });
+        });
+    }
+
+    /** Uma falha ao gravar a senha errada não muda a resposta do login; só deixa de contar esta tentativa. */
+    private CompletableFuture<Void> recordFailedLogin(User user) {
+        return userRepository.recordFailedLogin(user, loginThrottle.failureWindowStart())
+                .handle((failures, failure) -> {
+                    if (failure != null) {
+                        log.warn("Não foi possível registrar a senha errada do usuário {}: {}", user.getId(), failure.getMessage());
+                    } else {
+                        loginThrottle.failed(user, failures);
+                    }
+                    return null;
+                });
+    }
+
+    /** Não espera a gravação: o login já foi aceito. */
+    private void clearFailedLogins(User user) {
+        userRepository.clearFailedLogins(user.getId()).whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                log.warn("Não foi possível zerar as senhas erradas do usuário {}: {}", user.getId(), failure.getMessage());
+            }
+        });
+    }
+
+    /**
+     * @see UserService#listUsers(String, int, UserState, UserRole)
+     */
+    public CompletableFuture<PaginatedResult<UserResponseDTO>> listUsers(String lastKey, int limit, UserState status, UserRole role) {
+        int pageSize = pagination.pageSize(limit);
+        return pagination.load(UserPagination.listingOf(status, role), lastKey, pageSize,
+                startKey -> status == null && role == null
+                        ? userRepository.findPage(startKey, pageSize)
+                        : userRepository.findPageByStatusOrRole(status, role, startKey, pageSize));
+    }
+
+    public CompletableFuture<List<UserResponseDTO>> findUsersByIds(List<String> ids) {
+        return userRepository.findAllByIds(ids).thenApply(users -> users.stream()
+                .map(userMapper::toResponseDto)
+                .toList());
+    }
+
+    private CompletableFuture<UserUpdateResponseDTO> updateUniqueField(String id, UserField field, String newValue, boolean revokeTokens) {
+        AtomicBoolean changed = new AtomicBoolean();
+        return retryOnConflict(id, () -> findUserOrThrow(id).thenCompose(user -> {
+                    String valorAtual = field == UserField.USERNAME ? user.getUsername() : user.getEmail();
+                    changed.set(!newValue.equals(valorAtual));
+                    return changed.get()
+                            ? userRepository.updateUniqueField(user, field, newValue, revokeTokens)
+                            : CompletableFuture.completedFuture(user);
+                }), 1)
+                .thenCompose(user -> changed.get()
+                        ? userService.updateResponseAsync(user, revokeTokens)
+                        : CompletableFuture.completedFuture(userMapper.toUpdateResponseDto(user, tokenService.generateToken(user))));
+    }
+
+    private CompletableFuture<User> alteraSenha(String id, UpdatePasswordDTO request) {
+        return findUserOrThrow(id).thenCompose(user -> passwordEncoder.matchesAsync(request.oldPassword(), user.getPassword())
+                .thenCompose(senhaAntigaValida -> {
+                    if (!senhaAntigaValida) {
+                        throw new UserExceptions.InvalidOldPasswordException("Senha antiga inválida para o usuário com id: " + id);
+                    }
+                    return passwordEncoder.matchesAsync(request.newPassword(), user.getPassword());
+                })
+                .thenCompose(senhasIguais -> {
+                    if (senhasIguais) {
+                        throw new UserExceptions.InvalidNewPasswordException("A nova senha não pode ser igual a ultima senha.");
+                    }
+                    return matchesAny(request.newPassword(), user.getPasswordHistory());
+                })
+                .thenCompose(senhaRepetida -> {
+                    if (senhaRepetida) {
+                        throw new UserExceptions.InvalidOldPasswordException("A nova senha não pode ser igual a nenhuma das últimas 3 senhas utilizadas.");
+                    }
+                    return passwordEncoder.encodeAsync(request.newPassword());
+                })
+                .thenCompose(senhaEmHash -> {
+                    List<String> senhasAntigas = new ArrayList<>(user.getPasswordHistory());
+                    if (senhasAntigas.size() >= 3) {
+                        senhasAntigas.remove(0);
+                    }
+                    senhasAntigas.add(user.getPassword());
+                    return userRepository.updateFields(user, Map.of(
+                            UserField.PASSWORD, senhaEmHash,
+                            UserField.PASSWORD_HISTORY, senhasAntigas), true);
+                }));
+    }
+
+    /** Compara a senha com os hashes um de cada vez, parando no primeiro que bater. */
+    private CompletableFuture<Boolean> matchesAny(String rawPassword, List<String> hashes) {
+        CompletableFuture<Boolean> result = CompletableFuture.completedFuture(false);
+        for (String hash : hashes) {
+            result = result.thenCompose(found -> found
+                    ? CompletableFuture.completedFuture(true)
+                    : passwordEncoder.matchesAsync(rawPassword, hash));
+        }
+        return result;
+    }
+
+    /**
+     * Mesma política do {@link UserService}: relê o usuário e repete a gravação condicionada à versão até
+     * {@link UserService#MAX_UPDATE_ATTEMPTS} vezes antes de devolver o conflito (409).
+     */
+    private CompletableFuture<User> retryOnConflict(String id, Supplier<CompletableFuture<User>> readModifyWrite, int attempt) {
+        return readModifyWrite.get()
+                .handle((user, failure) -> {
+                    if (failure == null) {
+                        return CompletableFuture.completedFuture(user);
+                    }
+                    Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+                    if (!(cause instanceof UserExceptions.ConcurrentUpdateException) || attempt >= UserService.MAX_UPDATE_ATTEMPTS) {
+                        return CompletableFuture.<User>failedFuture(cause);
+                    }
+                    log.info("Conflito de versão ao atualizar o usuário {}; tentativa {} de {}.", id, attempt + 1, UserService.MAX_UPDATE_ATTEMPTS);
+                    return retryOnConflict(id, readModifyWrite, attempt + 1);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<User> findUserOrThrow(String id) {
+        return userRepository.findById(id).thenApply(user -> user
+                .orElseThrow(() -> new UserExceptions.UserNotFoundException("Usuário não encontrado com o id: " + id)));
+    }
+
+    /**
+     * @see UserQueryService#findForAuthentication(String, String)
+     */
+    public CompletableFuture<Optional<User>> findForAuthentication(String userId, String login) {
+        if (login == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        if (userId == null) {
+            return findByLogin(login);
+        }
+        return userRepository.findByIdConsistent(userId)
+                .thenApply(user -> user.filter(current -> UserQueryService.hasLogin(current, login)));
+    }
+
+    /** Busca pelo login (username ou email) no {@link AsyncUserRepository}. */
+    private CompletableFuture<Optional<User>> findByLogin(String login) {
+        if (login == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        if (login.contains("@")) {
+            return userRepository.findByEmail(login).thenCompose(user -> user.isPresent()
+                    ? CompletableFuture.completedFuture(user)
+                    : userRepository.findByUsername(login));
+        }
+        return userRepository.findByUsername(login);
+    }
+
+    /**
+     * Regrava o hash com o custo BCrypt atual sem atrasar a resposta do login; falhas são só registradas.
+     */
+    private void rehash(User user, String password) {
+        passwordEncoder.encodeAsync(password)
+                .thenCompose(hash -> userRepository.updateFields(user, Map.of(UserField.PASSWORD, hash), false))
+                .whenComplete((updated, failure) -> {
+                    if (failure != null) {
+                        log.warn("Não foi possível atualizar o hash de senha do usuário {}: {}", user.getId(), failure.getMessage());
+                    } else {
+                        log.info("Hash de senha do usuário {} atualizado para o custo BCrypt atual.", user.getId());
+                    }
+                });
+    }
+}
@@ -0,0 +1,173 @@
+package br.unibh.userservice.service;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserTableSchema;
+import br.unibh.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Junta buscas por id de requisições diferentes num único {@code BatchGetItem}, no estilo do DataLoader.
+ * <p>
+ * A primeira busca abre uma janela de {@code users.batchLoader.windowMillis}; as que chegam durante a janela
+ * entram no mesmo lote, que é enviado quando a janela fecha ou quando chega a {@code users.batchLoader.maxBatchSize}
+ * ids (no máximo 100, o limite do {@code BatchGetItem}). Sob muitas requisições simultâneas, cada uma troca um
+ * round-trip próprio por uma espera fixa de poucos milissegundos. Usuários já no cache do repositório são
+ * devolvidos na hora, sem esperar a janela.
+ * <p>
+ * Ids repetidos na mesma janela são lidos uma vez e cada chamador recebe a própria cópia. A métrica
+ * {@code users.batchLoader.batchSize} mostra quantos ids cada lote levou.
+ * <p>
+ * Uma thread só agenda o fechamento das janelas; os lotes são lidos num pool de {@code users.batchLoader.threads}
+ * threads, porque o {@code BatchGetItem} bloqueia e espera com backoff quando há chaves não processadas, e isso não
+ * pode atrasar o fechamento das outras janelas.
+ * <p>
+ * Desligado por padrão: com tráfego baixo cada lote leva um id só e a janela é pura espera. Ligue quando a métrica
+ * mostrar lotes maiores que um. Desligado, cada busca vai direto ao repositório.
+ */
+@Component
+public class UserBatchLoader implements DisposableBean {
+
+    private static final int MAX_BATCH_GET_KEYS = 100;
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService windowTimer;
+    private final ExecutorService dispatchExecutor;
+    private final DistributionSummary batchSizes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Lote aberto, protegido por {@link #lock}. */
+    private Map<String, CompletableFuture<Optional<User>>> pending = new LinkedHashMap<>();
+    /** Fechamento agendado da janela do lote aberto, protegido por {@link #lock}. */
+    private ScheduledFuture<?> windowClose;
+
+    public UserBatchLoader(UserRepository userRepository, MeterRegistry meterRegistry,
+                           @Value("${users.batchLoader.enabled:false}") boolean enabled,
+                           @Value("${users.batchLoader.windowMillis:1}") long windowMillis,
+                           @Value("${users.batchLoader.maxBatchSize:100}") int maxBatchSize,
+                           @Value("${users.batchLoader.threads:4}") int threads) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, MAX_BATCH_GET_KEYS));
+        this.windowTimer = enabled
+                ? Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("user-batch-loader-timer-"))
+                : null;
+        this.dispatchExecutor = enabled
+                ? Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("user-batch-loader-"))
+                : null;
+        this.batchSizes = meterRegistry.summary("users.batchLoader.batchSize");
+    }
+
+    /** Busca bloqueante pelo id, pelo próximo lote. */
+    public Optional<User> findById(String id) {
+        if (!enabled) {
+            return userRepository.findById(id);
+        }
+        try {
+            return load(id).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public CompletableFuture<Optional<User>> load(String id) {
+        if (!enabled) {
+            try {
+                return CompletableFuture.completedFuture(userRepository.findById(id));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        Optional<User> cached = userRepository.findCachedById(id);
+        if (cached.isPresent() || id == null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<Optional<User>> result;
+        Map<String, CompletableFuture<Optional<User>>> full = null;
+        lock.lock();
+        try {
+            result = pending.get(id);
+            if (result == null) {
+                result = new CompletableFuture<>();
+                pending.put(id, result);
+                if (pending.size() >= maxBatchSize) {
+                    full = takePending();
+                } else if (pending.size() == 1) {
+                    windowClose = windowTimer.schedule(this::closeWindow, windowMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full != null) {
+            var batch = full;
+            dispatchExecutor.execute(() -> dispatch(batch));
+        }
+        return result.thenApply(user -> user.map(UserTableSchema::copyOf));
+    }
+
+    private void closeWindow() {
+        Map<String, CompletableFuture<Optional<User>>> batch;
+        lock.lock();
+        try {
+            batch = takePending();
+        } finally {
+            lock.unlock();
+        }
+        // Se o lote já foi enviado por ter enchido, esta janela pode pegar o seguinte mais cedo; não há problema
+        if (!batch.isEmpty()) {
+            dispatchExecutor.execute(() -> dispatch(batch));
+        }
+    }
+
+    /** Deve ser chamado com o {@link #lock} adquirido. */
+    private Map<String, CompletableFuture<Optional<User>>> takePending() {
+        Map<String, CompletableFuture<Optional<User>>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (windowClose != null) {
+            windowClose.cancel(false);
+            windowClose = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<String, CompletableFuture<Optional<User>>> batch) {
+        batchSizes.record(batch.size());
+        try {
+            Map<String, User> found = userRepository.findUsersByIds(batch.keySet());
+            batch.forEach((id, result) -> result.complete(Optional.ofNullable(found.get(id))));
+        } catch (RuntimeException e) {
+            batch.values().forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (windowTimer != null) {
+            windowTimer.shutdown();
+            dispatchExecutor.shutdown();
+        }
+    }
+}
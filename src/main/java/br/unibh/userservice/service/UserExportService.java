@@ -0,0 +1,232 @@
+package br.unibh.userservice.service;
+
+import br.unibh.userservice.config.HmacSigner;
+import br.unibh.userservice.entity.UserView;
+import br.unibh.userservice.exception.ServiceExceptions;
+import br.unibh.userservice.mapper.UserMapper;
+import br.unibh.userservice.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Exportação da tabela inteira em NDJSON com scan paralelo.
+ * <p>
+ * Cada segmento do scan é lido por uma thread própria, que entrega as páginas numa fila limitada; a thread da
+ * requisição consome a fila e escreve na resposta. Se o cliente ler devagar, a fila enche e os segmentos param
+ * de ler, então a memória usada fica em torno de {@code (bufferedPages + segmentos) * pageSize} usuários,
+ * qualquer que seja o tamanho da tabela.
+ * <p>
+ * Depois de cada página escrita vai uma linha {@code {"checkpoint": "..."}} com a posição de todos os
+ * segmentos, assinada com HMAC-SHA256 numa chave derivada só para este uso. Se a transferência cair, o último
+ * checkpoint recebido retoma a exportação sem repetir usuários; um checkpoint alterado ou montado pelo cliente é
+ * recusado.
+ * <p>
+ * O status {@code 200} já foi enviado quando a primeira linha sai, então uma falha de leitura no meio da
+ * exportação não muda o status: a resposta termina com uma linha {@code {"error": "...", "checkpoint": "..."}},
+ * com o checkpoint da última página entregue. Uma resposta completa nunca tem essa linha.
+ */
+@Slf4j
+@Service
+public class UserExportService {
+
+    private static final String CHECKPOINT_KEY_PURPOSE = "export-checkpoint";
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
+    private final int maxSegments;
+    private final int pageSize;
+    private final int bufferedPages;
+    private final HmacSigner checkpointSigner;
+
+    public UserExportService(UserRepository userRepository, UserMapper userMapper, ObjectMapper objectMapper,
+                             @Value("${aws.dynamodb.export.checkpointSecret:${jwt.token.secret}}") String checkpointSecret,
+                             @Value("${aws.dynamodb.export.maxSegments:16}") int maxSegments,
+                             @Value("${aws.dynamodb.export.pageSize:500}") int pageSize,
+                             @Value("${aws.dynamodb.export.bufferedPages:8}") int bufferedPages) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.objectMapper = objectMapper;
+        this.maxSegments = maxSegments;
+        this.pageSize = pageSize;
+        this.bufferedPages = bufferedPages;
+        this.checkpointSigner = HmacSigner.forPurpose(checkpointSecret, CHECKPOINT_KEY_PURPOSE);
+    }
+
+    /**
+     * Escreve todos os usuários em {@code out}, um {@code UserResponseDTO} por linha, intercalados com linhas de
+     * checkpoint. Se um segmento falhar, a última linha é {@code {"error", "checkpoint"}}.
+     *
+     * @param segments    Número de segmentos do scan, limitado a {@code aws.dynamodb.export.maxSegments}.
+     *                    Ignorado ao retomar, pois a divisão precisa ser a mesma do checkpoint.
+     * @param resumeToken Último checkpoint recebido, ou {@code null} para exportar desde o início.
+     * @throws ServiceExceptions.InvalidCursorException se o checkpoint não tiver sido emitido por este serviço.
+     */
+    public void export(int segments, String resumeToken, OutputStream out) throws IOException {
+        SegmentCheckpoint[] positions = resumeToken == null
+                ? new SegmentCheckpoint[Math.max(1, Math.min(segments, maxSegments))]
+                : decode(resumeToken);
+        List<Integer> pending = new ArrayList<>();
+        for (int segment = 0; segment < positions.length; segment++) {
+            if (positions[segment] == null) {
+                positions[segment] = new SegmentCheckpoint(null, false);
+            }
+            if (!positions[segment].done()) {
+                pending.add(segment);
+            }
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (pending.isEmpty()) {
+            writer.flush();
+            return;
+        }
+
+        BlockingQueue<SegmentPage> queue = new ArrayBlockingQueue<>(bufferedPages);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ExecutorService workers = Executors.newFixedThreadPool(pending.size(), new CustomizableThreadFactory("user-export-"));
+        try {
+            for (int segment : pending) {
+                String lastKey = positions[segment].lastKey();
+                workers.execute(() -> scanSegment(segment, positions.length, lastKey, queue, cancelled));
+            }
+
+            int remaining = pending.size();
+            while (remaining > 0) {
+                SegmentPage page = queue.take();
+                if (page.failure() != null) {
+                    log.error("Falha no segmento {} da exportação: {}", page.segment(), page.failure().getMessage());
+                    Map<String, String> error = new LinkedHashMap<>();
+                    error.put("error", "Falha ao ler o segmento " + page.segment() + ". Retome a partir do checkpoint.");
+                    error.put("checkpoint", encode(positions));
+                    writeLine(writer, error);
+                    writer.flush();
+                    return;
+                }
+                for (UserView user : page.users()) {
+                    writeLine(writer, userMapper.toResponseDto(user));
+                }
+                positions[page.segment()] = new SegmentCheckpoint(page.lastKey(), page.lastKey() == null);
+                if (page.lastKey() == null) {
+                    remaining--;
+                }
+                writeLine(writer, Map.of("checkpoint", encode(positions)));
+                writer.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Exportação interrompida.", e);
+        } finally {
+            cancelled.set(true);
+            workers.shutdownNow();
+        }
+    }
+
+    private void scanSegment(int segment, int totalSegments, String startKey, BlockingQueue<SegmentPage> queue,
+                             AtomicBoolean cancelled) {
+        String lastKey = startKey;
+        try {
+            do {
+                Page<UserView> page = userRepository.findSegmentPage(segment, totalSegments, lastKey, pageSize);
+                lastKey = page.lastEvaluatedKey() == null || page.lastEvaluatedKey().isEmpty()
+                        ? null
+                        : page.lastEvaluatedKey().get("id").s();
+                // Páginas só com reservas não adiantam nada ao cliente; só a última precisa ser entregue
+                if ((!page.items().isEmpty() || lastKey == null)
+                        && !publish(queue, new SegmentPage(segment, page.items(), lastKey, null), cancelled)) {
+                    return;
+                }
+            } while (lastKey != null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            try {
+                publish(queue, new SegmentPage(segment, List.of(), lastKey, e), cancelled);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Espera espaço na fila, desistindo se a exportação tiver sido encerrada. */
+    private static boolean publish(BlockingQueue<SegmentPage> queue, SegmentPage page, AtomicBoolean cancelled)
+            throws InterruptedException {
+        while (!queue.offer(page, 1, TimeUnit.SECONDS)) {
+            if (cancelled.get()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String encode(SegmentCheckpoint[] positions) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(new ExportCheckpoint(Arrays.asList(positions)));
+        Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+        return base64.encodeToString(json) + "." + base64.encodeToString(checkpointSigner.sign(json));
+    }
+
+    SegmentCheckpoint[] decode(String token) {
+        int separator = token.indexOf('.');
+        if (separator <= 0 || separator == token.length() - 1) {
+            throw invalidCheckpoint();
+        }
+        ExportCheckpoint checkpoint;
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(token.substring(0, separator));
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+            if (!checkpointSigner.verify(json, signature)) {
+                throw invalidCheckpoint();
+            }
+            checkpoint = objectMapper.readValue(json, ExportCheckpoint.class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw invalidCheckpoint();
+        }
+        if (checkpoint == null || checkpoint.segments() == null || checkpoint.segments().isEmpty()
+                || checkpoint.segments().size() > maxSegments) {
+            throw invalidCheckpoint();
+        }
+        return checkpoint.segments().toArray(SegmentCheckpoint[]::new);
+    }
+
+    private static ServiceExceptions.InvalidCursorException invalidCheckpoint() {
+        return new ServiceExceptions.InvalidCursorException("Checkpoint de exportação inválido.");
+    }
+
+    private void writeLine(Writer writer, Object line) throws IOException {
+        writer.write(objectMapper.writeValueAsString(line));
+        writer.write('\n');
+    }
+
+    /** Posição de cada segmento; o índice na lista é o número do segmento. */
+    record ExportCheckpoint(List<SegmentCheckpoint> segments) {
+    }
+
+    record SegmentCheckpoint(String lastKey, boolean done) {
+    }
+
+    private record SegmentPage(int segment, List<UserView> users, String lastKey, RuntimeException failure) {
+    }
+}
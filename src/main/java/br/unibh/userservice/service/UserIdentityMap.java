@@ -0,0 +1,54 @@
+package br.unibh.userservice.service;
+
+import br.unibh.userservice.entity.User;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Identity map com escopo de requisição: cada usuário é lido do DynamoDB no máximo uma vez por requisição
+ * e as demais buscas pelo mesmo id recebem a mesma instância, que é gravada uma única vez no final da operação.
+ * Fora de uma requisição HTTP (tarefas agendadas, inicialização) não guarda nada.
+ */
+@Component
+public class UserIdentityMap {
+
+    private static final String ATTRIBUTE = UserIdentityMap.class.getName() + ".users";
+
+    public Optional<User> get(String id) {
+        Map<String, User> users = users(false);
+        return users == null ? Optional.empty() : Optional.ofNullable(users.get(id));
+    }
+
+    public void put(User user) {
+        Map<String, User> users = users(true);
+        if (users != null && user.getId() != null) {
+            users.put(user.getId(), user);
+        }
+    }
+
+    public void evict(String id) {
+        Map<String, User> users = users(false);
+        if (users != null) {
+            users.remove(id);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, User> users(boolean create) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        var users = (Map<String, User>) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (users == null && create) {
+            users = new HashMap<>();
+            attributes.setAttribute(ATTRIBUTE, users, RequestAttributes.SCOPE_REQUEST);
+        }
+        return users;
+    }
+}
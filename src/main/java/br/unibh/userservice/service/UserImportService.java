@@ -0,0 +1,324 @@
+package br.unibh.userservice.service;
+
+import br.unibh.userservice.config.BoundedPasswordEncoder;
+import br.unibh.userservice.dto.CreateUserRequestDTO;
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserUniqueKey;
+import br.unibh.userservice.mapper.UserMapper;
+import br.unibh.userservice.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Importação de usuários em lote a partir de NDJSON ou CSV.
+ * <p>
+ * O corpo é lido linha a linha e processado em janelas de poucas dezenas de linhas, então o arquivo nunca fica
+ * inteiro em memória. Em cada janela as senhas são convertidas em hash em paralelo, as reservas de
+ * username/email são verificadas com {@code BatchGetItem} e cada usuário é gravado junto com suas reservas em
+ * uma transação própria, então uma falha nunca deixa reserva sem usuário nem usuário sem reserva. O resultado de cada linha é escrito no relatório assim que a janela termina.
+ * <p>
+ * O hash usa um pool próprio, e não o do {@link BoundedPasswordEncoder}: uma importação grande ocuparia a fila
+ * inteira e os logins passariam a receber 503.
+ */
+@Slf4j
+@Service
+public class UserImportService implements DisposableBean {
+
+    /** Linhas por janela para cada thread de hash. */
+    private static final int ROWS_PER_THREAD = 8;
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final BCryptPasswordEncoder hashEncoder;
+    private final ExecutorService hashingPool;
+    private final int windowSize;
+
+    public UserImportService(UserRepository userRepository, UserMapper userMapper, Validator validator,
+                             ObjectMapper objectMapper, BoundedPasswordEncoder passwordEncoder,
+                             @Value("${security.password.importHashingThreads:0}") int hashingThreads) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        // Mesmo custo do encoder principal, para que os hashes importados não sejam regravados no primeiro login
+        this.hashEncoder = new BCryptPasswordEncoder(passwordEncoder.getStrength());
+        int threads = hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.hashingPool = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("user-import-hash-"));
+        this.windowSize = threads * ROWS_PER_THREAD;
+    }
+
+    /**
+     * Importa os usuários do corpo e escreve em {@code report} uma linha NDJSON por linha de entrada, seguida
+     * de uma linha de resumo.
+     *
+     * @param body   NDJSON com objetos {@code {"username","email","password"}} ou CSV com cabeçalho.
+     * @param csv    {@code true} se o corpo for CSV.
+     * @param report Saída do relatório; recebe {@code flush} ao fim de cada janela.
+     */
+    public void importUsers(InputStream body, boolean csv, OutputStream report) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(report, StandardCharsets.UTF_8));
+        ImportState state = new ImportState();
+
+        int lineNumber = 0;
+        List<String> header = null;
+        if (csv) {
+            String headerLine = reader.readLine();
+            lineNumber++;
+            header = headerLine == null ? List.of() : splitCsv(headerLine).stream()
+                    .map(column -> column.trim().toLowerCase())
+                    .toList();
+        }
+
+        List<ImportRow> window = new ArrayList<>(windowSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            window.add(csv ? parseCsv(lineNumber, line, header) : parseJson(lineNumber, line));
+            if (window.size() == windowSize) {
+                processWindow(window, state, writer);
+                window.clear();
+            }
+        }
+        if (!window.isEmpty()) {
+            processWindow(window, state, writer);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("status", "SUMMARY");
+        summary.put("created", state.created);
+        summary.put("failed", state.failed);
+        writeLine(writer, summary);
+        writer.flush();
+        log.info("Importação concluída: {} usuários criados, {} linhas com erro", state.created, state.failed);
+    }
+
+    private void processWindow(List<ImportRow> window, ImportState state, Writer writer) throws IOException {
+        List<ImportRow> candidates = new ArrayList<>();
+        for (ImportRow row : window) {
+            if (row.error != null) {
+                continue;
+            }
+            row.usernameKey = UserUniqueKey.usernameKey(row.request.username().trim().toLowerCase());
+            row.emailKey = UserUniqueKey.emailKey(row.request.email().trim().toLowerCase());
+            boolean usernameRepeated = !state.seenKeys.add(row.usernameKey);
+            boolean emailRepeated = !state.seenKeys.add(row.emailKey);
+            if (usernameRepeated || emailRepeated) {
+                row.error = (usernameRepeated ? "Username" : "Email") + " repetido no arquivo.";
+            } else {
+                candidates.add(row);
+            }
+        }
+
+        try {
+            createCandidates(candidates);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao gravar janela da importação: {}", e.getMessage());
+            candidates.stream()
+                    .filter(row -> row.error == null && row.user == null)
+                    .forEach(row -> row.error = e.getMessage());
+        }
+
+        for (ImportRow row : window) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("line", row.line);
+            if (row.error == null) {
+                state.created++;
+                result.put("status", "CREATED");
+                result.put("id", row.user.getId());
+                result.put("username", row.user.getUsername());
+            } else {
+                state.failed++;
+                result.put("status", "ERROR");
+                result.put("error", row.error);
+            }
+            writeLine(writer, result);
+        }
+        writer.flush();
+    }
+
+    private void createCandidates(List<ImportRow> candidates) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        Set<String> keys = new HashSet<>();
+        candidates.forEach(row -> {
+            keys.add(row.usernameKey);
+            keys.add(row.emailKey);
+        });
+        Set<String> reserved = userRepository.findReservedUniqueKeys(keys);
+
+        List<ImportRow> accepted = new ArrayList<>();
+        for (ImportRow row : candidates) {
+            boolean usernameTaken = reserved.contains(row.usernameKey);
+            boolean emailTaken = reserved.contains(row.emailKey);
+            if (usernameTaken || emailTaken) {
+                row.error = duplicateMessage(usernameTaken, emailTaken);
+            } else {
+                accepted.add(row);
+            }
+        }
+
+        List<CompletableFuture<String>> hashes = accepted.stream()
+                .map(row -> CompletableFuture.supplyAsync(() -> hashEncoder.encode(row.request.password()), hashingPool))
+                .toList();
+        Map<String, ImportRow> rowsByUserId = new HashMap<>();
+        List<User> users = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            ImportRow row = accepted.get(i);
+            User user = userMapper.toEntity(row.request, hashes.get(i).join());
+            rowsByUserId.put(user.getId(), row);
+            users.add(user);
+        }
+
+        Map<String, RuntimeException> failures = userRepository.createAll(users);
+        for (User user : users) {
+            ImportRow row = rowsByUserId.get(user.getId());
+            RuntimeException failure = failures.get(user.getId());
+            if (failure != null) {
+                row.error = failure.getMessage();
+            } else {
+                row.user = user;
+            }
+        }
+    }
+
+    private ImportRow parseJson(int lineNumber, String line) {
+        try {
+            return validate(lineNumber, objectMapper.readValue(line, CreateUserRequestDTO.class));
+        } catch (JsonProcessingException e) {
+            return ImportRow.failed(lineNumber, "JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+
+    private ImportRow parseCsv(int lineNumber, String line, List<String> header) {
+        List<String> values = splitCsv(line);
+        if (values.size() != header.size()) {
+            return ImportRow.failed(lineNumber, "Esperadas " + header.size() + " colunas, encontradas " + values.size() + ".");
+        }
+        Map<String, String> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i), values.get(i));
+        }
+        return validate(lineNumber, new CreateUserRequestDTO(columns.get("username"), columns.get("email"), columns.get("password")));
+    }
+
+    private ImportRow validate(int lineNumber, CreateUserRequestDTO request) {
+        Set<ConstraintViolation<CreateUserRequestDTO>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            return ImportRow.failed(lineNumber, message);
+        }
+        return new ImportRow(lineNumber, request);
+    }
+
+    /** Separa uma linha CSV por vírgulas, respeitando campos entre aspas e aspas duplicadas ({@code ""}). */
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static String duplicateMessage(boolean username, boolean email) {
+        if (username && email) {
+            return "Email e Username já cadastrados.";
+        }
+        return email ? "Email já cadastrado." : "Username já cadastrado.";
+    }
+
+    private void writeLine(Writer writer, Map<String, Object> line) throws IOException {
+        writer.write(objectMapper.writeValueAsString(line));
+        writer.write('\n');
+    }
+
+    @Override
+    public void destroy() {
+        hashingPool.shutdown();
+    }
+
+    private static final class ImportRow {
+        private final int line;
+        private final CreateUserRequestDTO request;
+        private String error;
+        private String usernameKey;
+        private String emailKey;
+        private User user;
+
+        private ImportRow(int line, CreateUserRequestDTO request) {
+            this.line = line;
+            this.request = request;
+        }
+
+        private static ImportRow failed(int line, String error) {
+            ImportRow row = new ImportRow(line, null);
+            row.error = error;
+            return row;
+        }
+    }
+
+    private static final class ImportState {
+        /** Reservas já vistas no arquivo, para rejeitar repetições sem consultar o DynamoDB. */
+        private final Set<String> seenKeys = new HashSet<>();
+        private int created;
+        private int failed;
+    }
+}
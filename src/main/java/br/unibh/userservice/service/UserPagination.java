@@ -0,0 +1,219 @@
+package br.unibh.userservice.service;
+
+import br.unibh.userservice.config.HmacSigner;
+import br.unibh.userservice.dto.UserResponseDTO;
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
+import br.unibh.userservice.entity.UserView;
+import br.unibh.userservice.exception.ServiceExceptions;
+import br.unibh.userservice.mapper.UserMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Paginação das listagens de usuários, compartilhada pelo {@link UserService} e pelo {@link AsyncUserService}.
+ * <p>
+ * O {@code nextKey} devolvido é um cursor opaco: a {@code lastEvaluatedKey} completa (id, partição e ordenação
+ * do índice) mais a listagem (índice e filtros), em JSON base64url assinado com HMAC-SHA256. A chave é derivada
+ * de {@code pagination.cursorSecret} (por padrão o segredo do JWT) só para este uso, então a chave do JWT nunca
+ * assina cursores. O cliente não consegue montar nem alterar um cursor, e o cursor de uma listagem não é aceito
+ * em outra com filtros diferentes.
+ * <p>
+ * Com {@code pagination.prefetch.enabled=true}, ao servir uma página a próxima já é buscada em segundo plano e
+ * fica em cache por {@code pagination.prefetch.ttlMillis}; quem pagina em sequência recebe a página pronta.
+ */
+@Component
+public class UserPagination implements DisposableBean {
+
+    /** Listagem sem filtros, que é um scan na tabela. */
+    static final String TABLE_SCAN = "table";
+
+    private static final String CURSOR_KEY_PURPOSE = "pagination-cursor";
+
+    private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
+    private final HmacSigner cursorSigner;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final Cache<String, CompletableFuture<PaginatedResult<UserResponseDTO>>> prefetched;
+    private final ExecutorService prefetchExecutor;
+
+    public UserPagination(UserMapper userMapper, ObjectMapper objectMapper,
+                          @Value("${pagination.cursorSecret:${jwt.token.secret}}") String cursorSecret,
+                          @Value("${pagination.defaultPageSize:10}") int defaultPageSize,
+                          @Value("${pagination.maxPageSize:100}") int maxPageSize,
+                          @Value("${pagination.prefetch.enabled:false}") boolean prefetchEnabled,
+                          @Value("${pagination.prefetch.ttlMillis:5000}") long prefetchTtlMillis,
+                          @Value("${pagination.prefetch.maxEntries:1000}") long prefetchMaxEntries) {
+        this.userMapper = userMapper;
+        this.objectMapper = objectMapper;
+        this.cursorSigner = HmacSigner.forPurpose(cursorSecret, CURSOR_KEY_PURPOSE);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.prefetched = prefetchEnabled
+                ? Caffeine.newBuilder()
+                        .expireAfterWrite(Duration.ofMillis(prefetchTtlMillis))
+                        .maximumSize(prefetchMaxEntries)
+                        .build()
+                : null;
+        this.prefetchExecutor = prefetchEnabled
+                ? Executors.newFixedThreadPool(2, new CustomizableThreadFactory("user-page-prefetch-"))
+                : null;
+    }
+
+    /**
+     * Identifica a listagem no cursor: o índice consultado e os valores dos filtros, para que o cursor de uma
+     * listagem não seja usado como {@code exclusiveStartKey} de outra partição.
+     */
+    public static String listingOf(UserState status, UserRole role) {
+        if (status == null && role == null) {
+            return TABLE_SCAN;
+        }
+        return (status != null ? User.STATUS_INDEX : User.ROLE_INDEX) + "/" + status + "/" + role;
+    }
+
+    /** Tamanho de página efetivo: valores não positivos usam o padrão, e nada passa do máximo configurado. */
+    public int pageSize(int requested) {
+        return requested <= 0 ? defaultPageSize : Math.min(requested, maxPageSize);
+    }
+
+    /**
+     * Carrega a página indicada pelo cursor, aproveitando a página pré-carregada quando houver.
+     *
+     * @param listing   Listagem, de {@link #listingOf}.
+     * @param cursor    {@code nextKey} da página anterior, ou {@code null} na primeira.
+     * @param query     Consulta ao repositório a partir da {@code exclusiveStartKey} decodificada.
+     */
+    public CompletableFuture<PaginatedResult<UserResponseDTO>> load(String listing, String cursor, int limit,
+                                                                   Function<Map<String, AttributeValue>, CompletableFuture<Page<UserView>>> query) {
+        Map<String, AttributeValue> startKey = decode(cursor, listing);
+        if (prefetched == null) {
+            return query.apply(startKey).thenApply(page -> toResult(page, listing));
+        }
+
+        CompletableFuture<PaginatedResult<UserResponseDTO>> result = null;
+        if (cursor != null) {
+            result = prefetched.asMap().remove(cacheKey(listing, limit, cursor));
+        }
+        if (result == null) {
+            result = query.apply(startKey).thenApply(page -> toResult(page, listing));
+        } else {
+            // Se a pré-carga falhou, a página é buscada de novo em vez de devolver o erro de outra chamada
+            result = result.exceptionallyCompose(failure -> query.apply(startKey).thenApply(page -> toResult(page, listing)));
+        }
+        return result.whenComplete((page, failure) -> {
+            if (failure == null && page.getNextKey() != null) {
+                prefetch(listing, limit, page.getNextKey(), query);
+            }
+        });
+    }
+
+    /** Espera o resultado de {@link #load} devolvendo a exceção original, sem o {@link CompletionException}. */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private void prefetch(String listing, int limit, String cursor,
+                          Function<Map<String, AttributeValue>, CompletableFuture<Page<UserView>>> query) {
+        Map<String, AttributeValue> startKey = decode(cursor, listing);
+        prefetched.asMap().computeIfAbsent(cacheKey(listing, limit, cursor), key -> CompletableFuture
+                .supplyAsync(() -> query.apply(startKey), prefetchExecutor)
+                .thenCompose(Function.identity())
+                .thenApply(page -> toResult(page, listing)));
+    }
+
+    private PaginatedResult<UserResponseDTO> toResult(Page<UserView> page, String listing) {
+        List<UserResponseDTO> dtos = page.items().stream()
+                .map(userMapper::toResponseDto)
+                .toList();
+        return new PaginatedResult<>(dtos, encode(listing, page.lastEvaluatedKey()));
+    }
+
+    String encode(String listing, Map<String, AttributeValue> lastEvaluatedKey) {
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            return null;
+        }
+        Map<String, String> key = new HashMap<>();
+        lastEvaluatedKey.forEach((name, value) -> key.put(name, value.s()));
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(Map.of("listing", listing, "key", key));
+            Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+            return base64.encodeToString(payload) + "." + base64.encodeToString(cursorSigner.sign(payload));
+        } catch (IOException e) {
+            throw new IllegalStateException("Não foi possível gerar o cursor de paginação.", e);
+        }
+    }
+
+    Map<String, AttributeValue> decode(String cursor, String listing) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        int separator = cursor.indexOf('.');
+        if (separator <= 0 || separator == cursor.length() - 1) {
+            throw invalidCursor();
+        }
+        Map<String, Object> content;
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(cursor.substring(0, separator));
+            byte[] signature = Base64.getUrlDecoder().decode(cursor.substring(separator + 1));
+            if (!cursorSigner.verify(payload, signature)) {
+                throw invalidCursor();
+            }
+            content = objectMapper.readValue(payload, new TypeReference<>() {});
+        } catch (IOException | IllegalArgumentException e) {
+            throw invalidCursor();
+        }
+        if (content == null || !listing.equals(content.get("listing"))
+                || !(content.get("key") instanceof Map<?, ?> key) || key.isEmpty()) {
+            throw invalidCursor();
+        }
+        Map<String, AttributeValue> startKey = new HashMap<>();
+        for (Map.Entry<?, ?> attribute : key.entrySet()) {
+            if (!(attribute.getKey() instanceof String name) || !(attribute.getValue() instanceof String value)) {
+                throw invalidCursor();
+            }
+            startKey.put(name, AttributeValue.fromS(value));
+        }
+        return startKey;
+    }
+
+    private static String cacheKey(String listing, int limit, String cursor) {
+        return listing + "|" + limit + "|" + cursor;
+    }
+
+    private static ServiceExceptions.InvalidCursorException invalidCursor() {
+        return new ServiceExceptions.InvalidCursorException("Cursor de paginação inválido para esta listagem.");
+    }
+
+    @Override
+    public void destroy() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package br.unibh.userservice.service;
 
+import br.unibh.userservice.dto.AvailabilityResponseDTO;
 import br.unibh.userservice.dto.UserResponseDTO;
 import br.unibh.userservice.entity.User;
+import br.unibh.userservice.exception.ServiceExceptions;
 import br.unibh.userservice.exception.UserExceptions;
 import br.unibh.userservice.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
@@ -9,15 +11,20 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 @Slf4j
 @Service
 public class UserQueryService {
 
     private final UserRepository userRepository;
+    private final UserIdentityMap identityMap;
+    private final UserBatchLoader batchLoader;
 
-    public UserQueryService(UserRepository userRepository) {
+    public UserQueryService(UserRepository userRepository, UserIdentityMap identityMap, UserBatchLoader batchLoader) {
         this.userRepository = userRepository;
+        this.identityMap = identityMap;
+        this.batchLoader = batchLoader;
     }
 
     public User findByEmail(String email) {
@@ -30,24 +37,79 @@ public class UserQueryService {
                 .orElseThrow();
     }
 
-    public User findUserOrThrow(String id) {
-        return userRepository.findById(id)
-                .orElseThrow(() -> new UserExceptions.UserNotFoundException("Usuário não encontrado com o id: " + id));
+    /**
+     * Resolve o usuário pelo login informado no login: emails são buscados no índice de email
+     * (e, se não houver, no de username); qualquer outro valor vai direto ao índice de username.
+     */
+    public Optional<User> findByLogin(String login) {
+        return findByLogin(login, userRepository::findByEmail, userRepository::findByUsername);
+    }
+
+    private static Optional<User> findByLogin(String login, Function<String, Optional<User>> byEmail,
+                                              Function<String, Optional<User>> byUsername) {
+        if (login == null) {
+            return Optional.empty();
+        }
+        if (login.contains("@")) {
+            return byEmail.apply(login).or(() -> byUsername.apply(login));
+        }
+        return byUsername.apply(login);
+    }
+
+    /**
+     * Busca para autenticação e autorização, sempre fora do cache e com uma só leitura.
+     * <p>
+     * Com o id (tokens que o trazem), um {@code GetItem} consistente: bloqueio, exclusão, papel e troca de senha
+     * valem na próxima requisição, em qualquer réplica. Um usuário que não tem mais aquele username/email não é
+     * devolvido. Sem o id (o login), o item do índice de username/email, que tem todos os atributos, é usado
+     * direto; por ser um índice, pode estar atrás da tabela por alguns milissegundos.
+     *
+     * @param userId Id do usuário, se conhecido; {@code null} resolve pelo login.
+     * @param login  Username ou email.
+     */
+    public Optional<User> findForAuthentication(String userId, String login) {
+        if (login == null) {
+            return Optional.empty();
+        }
+        if (userId == null) {
+            return findByLogin(login, userRepository::findByEmailUncached, userRepository::findByUsernameUncached);
+        }
+        return userRepository.findByIdConsistent(userId).filter(user -> hasLogin(user, login));
     }
 
-    public boolean userJaCadastradoUsername(String username){
-        if(userRepository.existsByUsername(username)) {
-            log.warn("Email já cadastrado: {}", username);
-            return true;
+    static boolean hasLogin(User user, String login) {
+        String normalized = login.trim().toLowerCase();
+        return normalized.equals(user.getUsername()) || normalized.equals(user.getEmail());
+    }
+
+    /**
+     * Informa se o username e o email estão livres. Valores que o {@code UniqueKeyFilter} não conhece são
+     * respondidos sem ir ao DynamoDB; os demais, pela reserva {@code USERNAME#}/{@code EMAIL#}, nunca pelo índice.
+     * A resposta é só indicativa: quem garante a unicidade é a transação do cadastro.
+     */
+    public AvailabilityResponseDTO availability(String username, String email) {
+        boolean checkUsername = username != null && !username.isBlank();
+        boolean checkEmail = email != null && !email.isBlank();
+        if (!checkUsername && !checkEmail) {
+            throw new ServiceExceptions.InvalidRequestException("Informe o username ou o email.");
         }
-        return false;
+        return new AvailabilityResponseDTO(
+                checkUsername ? !userRepository.existsByUsername(username) : null,
+                checkEmail ? !userRepository.existsByEmail(email) : null);
     }
 
-    public boolean userJaCadastradoEmail(String email){
-        if(userRepository.existsByEmail(email)) {
-            log.warn("Username já cadastrado: {}", email);
-            return true;
+    /**
+     * Busca o usuário pelo id, reaproveitando a instância já carregada na requisição atual. Fora disso, a leitura
+     * vai no próximo lote do {@link UserBatchLoader}, junto com as buscas de outras requisições.
+     */
+    public User findUserOrThrow(String id) {
+        Optional<User> loaded = identityMap.get(id);
+        if (loaded.isPresent()) {
+            return loaded.get();
         }
-        return false;
+        User user = batchLoader.findById(id)
+                .orElseThrow(() -> new UserExceptions.UserNotFoundException("Usuário não encontrado com o id: " + id));
+        identityMap.put(user);
+        return user;
     }
 }
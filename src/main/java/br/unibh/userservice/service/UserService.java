@@ -1,5 +1,7 @@
 package br.unibh.userservice.service;
 
+import br.unibh.userservice.config.LoginThrottle;
+import br.unibh.userservice.config.TokenRevocationRegistry;
 import br.unibh.userservice.config.TokenService;
 import br.unibh.userservice.dto.*;
 import br.unibh.userservice.entity.User;
@@ -7,6 +9,7 @@ import br.unibh.userservice.entity.UserRole;
 import br.unibh.userservice.entity.UserState;
 import br.unibh.userservice.exception.UserExceptions;
 import br.unibh.userservice.mapper.UserMapper;
+import br.unibh.userservice.repository.UserField;
 import br.unibh.userservice.repository.UserRepository;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import lombok.extern.flogger.Flogger;
@@ -16,19 +19,15 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.CrossOrigin;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Consumer;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static com.auth0.jwt.JWT.decode;
 
@@ -36,39 +35,39 @@ import static com.auth0.jwt.JWT.decode;
 @Service
 public class UserService  {
 
+    static final int MAX_UPDATE_ATTEMPTS = 3;
+
     private final UserRepository userRepository;
     private final UserQueryService userQueryService;
-    private final DynamoDbTable<User> userTable;
+    private final UserPagination pagination;
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
     private final TokenService tokenService;
     private final AuthenticationManager authenticationManager;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final UserIdentityMap identityMap;
+    private final LoginThrottle loginThrottle;
 
-    public UserService(UserRepository userRepository , UserQueryService userQueryService, DynamoDbTable<User> userTable, UserMapper userMapper, TokenService tokenService, AuthenticationManager authenticationManager) {
+    public UserService(UserRepository userRepository , UserQueryService userQueryService, UserPagination pagination, UserMapper userMapper, TokenService tokenService, AuthenticationManager authenticationManager, TokenRevocationRegistry tokenRevocationRegistry, UserIdentityMap identityMap, PasswordEncoder passwordEncoder, LoginThrottle loginThrottle) {
         this.userMapper = userMapper;
-        this.userTable = userTable;
+        this.pagination = pagination;
         this.userQueryService = userQueryService;
         this.userRepository = userRepository;
-        this.passwordEncoder = new BCryptPasswordEncoder();
+        this.passwordEncoder = passwordEncoder;
         this.tokenService = tokenService;
         this.authenticationManager = authenticationManager;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
+        this.identityMap = identityMap;
+        this.loginThrottle = loginThrottle;
     }
 
     public UserResponseDTO createUser(CreateUserRequestDTO request ) {
         log.info("Criando novo usuário com username: {} e email: {}", request.username(), request.email());
-        String username = request.username().trim().toLowerCase();
-        String email = request.email().trim().toLowerCase();
-
-        ValidationResultDTO validado = this.validationResultDTO(email, username);
-        if (!validado.valid()) {
-            throw new UserExceptions.UserAlreadyExistsException(validado.message());
-        }
-
         String encryptedPassword = passwordEncoder.encode(request.password());
 
         User novoUser = userMapper.toEntity(request, encryptedPassword);
 
-        userRepository.save(novoUser);
+        userRepository.create(novoUser);
 
         return userMapper.toResponseDto(novoUser);
     }
@@ -76,18 +75,92 @@ public class UserService  {
     public void deleteUser(String id) {
         checkAdminOrSelf(id);
         log.info("Deletando usuário com id: {}", id);
-        User user = userQueryService.findUserOrThrow(id);
-        userRepository.deleteById(user.getId());
+        // A remoção é condicionada ao username/email lidos; se foram trocados nesse meio tempo, relê e tenta de novo
+        User user = retryOnConflict(id, () -> {
+            User atual = userQueryService.findUserOrThrow(id);
+            userRepository.delete(atual);
+            return atual;
+        });
+        revokeAllTokens(user);
     }
 
-    public UserUpdateResponseDTO updateUserField(String id, Consumer<User> updateAction) {
+    /**
+     * Recusa todos os tokens já emitidos para o usuário, no modo stateless: eles carregam no máximo a versão de
+     * token atual, então basta exigir a seguinte. Usado quando o usuário deixa de existir e não há versão nova
+     * gravada para publicar.
+     */
+    private void revokeAllTokens(User user) {
+        identityMap.evict(user.getId());
+        tokenRevocationRegistry.revoke(user.getId(), TokenService.tokenVersionOf(user) + 1);
+    }
+
+    /** @see #revokeAllTokens(User) */
+    CompletableFuture<Void> revokeAllTokensAsync(User user) {
+        return tokenRevocationRegistry.revokeAsync(user.getId(), TokenService.tokenVersionOf(user) + 1);
+    }
+
+    /**
+     * Grava só os campos alterados com um único {@code UpdateItem}, sem ler o usuário antes.
+     *
+     * @param revokeTokens incrementa a versão de token do usuário, invalidando os tokens já emitidos
+     *                     no modo de autenticação stateless.
+     */
+    public UserUpdateResponseDTO updateUserFields(String id, Map<UserField, Object> changes, boolean revokeTokens) {
+        User usuarioAtualizado = userRepository.updateFields(id, changes, revokeTokens);
+        return updateResponse(usuarioAtualizado, revokeTokens);
+    }
+
+    private UserUpdateResponseDTO updateUniqueField(String id, UserField field, String newValue, boolean revokeTokens) {
         User user = userQueryService.findUserOrThrow(id);
-        updateAction.accept(user);
-        user.setUpdatedAt(LocalDateTime.now());
+        String valorAtual = field == UserField.USERNAME ? user.getUsername() : user.getEmail();
+        if (newValue.equals(valorAtual)) {
+            return userMapper.toUpdateResponseDto(user, tokenService.generateToken(user));
+        }
 
-        User usuarioAtualizado = userRepository.save(user);
+        // Nas novas tentativas o identity map já foi limpo, então o usuário é relido do DynamoDB
+        User usuarioAtualizado = retryOnConflict(id, () -> userRepository.updateUniqueField(
+                userQueryService.findUserOrThrow(id), field, newValue, revokeTokens));
+        return updateResponse(usuarioAtualizado, revokeTokens);
+    }
+
+    /**
+     * Executa uma leitura seguida de gravação condicionada à versão lida. Se outra requisição alterou o usuário
+     * nesse meio tempo, relê o usuário e tenta de novo, até {@link #MAX_UPDATE_ATTEMPTS} vezes; depois disso o
+     * conflito chega ao cliente como 409.
+     */
+    private User retryOnConflict(String id, Supplier<User> readModifyWrite) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return readModifyWrite.get();
+            } catch (UserExceptions.ConcurrentUpdateException e) {
+                identityMap.evict(id);
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    log.warn("Conflito de versão ao atualizar o usuário {} após {} tentativas.", id, attempt);
+                    throw e;
+                }
+                log.info("Conflito de versão ao atualizar o usuário {}; tentativa {} de {}.", id, attempt + 1, MAX_UPDATE_ATTEMPTS);
+            }
+        }
+    }
+
+    /**
+     * Variante de {@link #updateResponse} para o {@link AsyncUserService}: a revogação é gravada fora da thread
+     * que completou o futuro.
+     */
+    CompletableFuture<UserUpdateResponseDTO> updateResponseAsync(User usuarioAtualizado, boolean revokeTokens) {
+        CompletableFuture<Void> revoked = revokeTokens
+                ? tokenRevocationRegistry.revokeAsync(usuarioAtualizado.getId(), TokenService.tokenVersionOf(usuarioAtualizado))
+                : CompletableFuture.completedFuture(null);
+        return revoked.thenApply(ignored -> userMapper.toUpdateResponseDto(usuarioAtualizado, tokenService.generateToken(usuarioAtualizado)));
+    }
 
-        var token = tokenService.generateToken(user);
+    UserUpdateResponseDTO updateResponse(User usuarioAtualizado, boolean revokeTokens) {
+        identityMap.put(usuarioAtualizado);
+        if (revokeTokens) {
+            tokenRevocationRegistry.revoke(usuarioAtualizado.getId(), TokenService.tokenVersionOf(usuarioAtualizado));
+        }
+
+        var token = tokenService.generateToken(usuarioAtualizado);
 
         return userMapper.toUpdateResponseDto(usuarioAtualizado,token);
     }
@@ -95,40 +168,39 @@ public class UserService  {
     public UserUpdateResponseDTO updateUsername(String id, UpdateUsernameDTO request) {
         checkAdminOrSelf(id);
         String username = request.username().trim().toLowerCase();
-        if(userQueryService.userJaCadastradoUsername(username)) {
-            throw new UserExceptions.UserAlreadyExistsException("Username já cadastrado: " + request.username());
-        }
 
         log.info("Atualizando username do usuário com id: {}" , id);
-        return updateUserField(id, user -> user.setUsername(username));
+        return updateUniqueField(id, UserField.USERNAME, username, true);
     }
 
     public UserUpdateResponseDTO updateEmail(String id, UpdateEmailDTO request) {
         checkAdminOrSelf(id);
         String email = request.email().trim().toLowerCase();
-        if(userQueryService.userJaCadastradoEmail(email)) {
-            throw new UserExceptions.UserAlreadyExistsException("Email já cadastrado: " + request.email());
-        }
 
         log.info("Atualizando email do usuário com id: {}", id);
-        return updateUserField(id, user -> user.setEmail(email));
+        return updateUniqueField(id, UserField.EMAIL, email, false);
     }
 
     public UserUpdateResponseDTO updatePassword(String id, UpdatePasswordDTO request) {
         checkAdminOrSelf(id);
         log.info("Atualizando senha do usuário com id: {}", id);
 
-        if(!validaSenhaAntiga(id, request.oldPassword())){
+        User usuarioAtualizado = retryOnConflict(id, () -> alteraSenha(id, request));
+        return updateResponse(usuarioAtualizado, true);
+    }
+
+    private User alteraSenha(String id, UpdatePasswordDTO request) {
+        User userTrocandoSenha = userQueryService.findUserOrThrow(id);
+
+        if(!validaSenhaAntiga(userTrocandoSenha, request.oldPassword())){
             throw new UserExceptions.InvalidOldPasswordException("Senha antiga inválida para o usuário com id: " + id);
         }
 
-        if(senhasIguais(id, request.newPassword())){
+        if(senhasIguais(userTrocandoSenha, request.newPassword())){
             throw new UserExceptions.InvalidNewPasswordException("A nova senha não pode ser igual a ultima senha.");
         }
 
-        User userTrocandoSenha = userQueryService.findUserOrThrow(id);
-
-        List<String> senhasAntigas = userTrocandoSenha.getPasswordHistory();
+        List<String> senhasAntigas = new ArrayList<>(userTrocandoSenha.getPasswordHistory());
 
         for(String hashAntigo : senhasAntigas){
             if(passwordEncoder.matches(request.newPassword() , hashAntigo)){
@@ -146,23 +218,22 @@ public class UserService  {
 
         log.info("Historico de todas as senhas antigas do usuário com id: {}: {}", id, senhasAntigas);
 
-        return updateUserField(id, user -> {
-                user.setPassword(senhaEmHash);
-                user.setPasswordHistory(senhasAntigas);
-                });
+        return userRepository.updateFields(userTrocandoSenha, Map.of(
+                UserField.PASSWORD, senhaEmHash,
+                UserField.PASSWORD_HISTORY, senhasAntigas), true);
     }
 
     public UserUpdateResponseDTO updateRole(String id, UpdateRoleDTO request) {
         log.info("Atualizando role do usuário com id: {}", id);
-        return updateUserField(id, user -> user.setRole(request.role()));
+        return updateUserFields(id, Map.of(UserField.ROLE, request.role()), true);
     }
 
     public UserUpdateResponseDTO updateUserStatus(String id, UpdateStatusDTO req) {
         log.info("Atualizando status do usuário com id: {} para {}", id, req.userState());
-        return updateUserField(id, user -> user.setStatus(req.userState()));
+        return updateUserFields(id, Map.of(UserField.STATUS, req.userState()), true);
     }
 
-    private void checkAdminOrSelf(String targetUserId) {
+    static void checkAdminOrSelf(String targetUserId) {
         User usuarioLogado = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
 
         if (usuarioLogado.getRole() == UserRole.ADMIN) {
@@ -184,8 +255,7 @@ public class UserService  {
         return new CreateUserRequestDTO(username, email, encryptedPassword);
     }
 
-    private boolean validaSenhaAntiga(String id, String senhaAntiga){
-        User user = userQueryService.findUserOrThrow(id);
+    private boolean validaSenhaAntiga(User user, String senhaAntiga){
         return passwordEncoder.matches(senhaAntiga, user.getPassword());
     }
 
@@ -194,34 +264,22 @@ public class UserService  {
         return passwordEncoder.encode(senha);
     }
 
-    private boolean senhasIguais(String id, String senha){
-        User user = userQueryService.findUserOrThrow(id);
+    private boolean senhasIguais(User user, String senha){
         String senhaAtualHash = user.getPassword();
         return passwordEncoder.matches(senha, senhaAtualHash);
     }
 
-    public ValidationResultDTO validationResultDTO(String email, String username) {
-        log.info("Validando dados do usuário para registro...");
-        if(userRepository.existsByEmail(email) && userRepository.existsByUsername(username)) {
-            log.warn("Email e Username já cadastrados: {} , {}", email, username);
-            return new ValidationResultDTO(false, "Email e Username já cadastrados.");
-        }
-        if(userQueryService.userJaCadastradoEmail(email)) {
-            return new ValidationResultDTO(false, "Email já cadastrado.");
-        }
-        if(userQueryService.userJaCadastradoUsername(username)) {
-            return new ValidationResultDTO(false, "Username já cadastrado.");
-        }
-        return new ValidationResultDTO(true , "OK.");
-    }
-
-
     public String decodeJwtToken(String token) {
         DecodedJWT decodedJWT = decode(token);
         return decodedJWT.getSubject();
     }
 
-    public LoginResponseDTO autenticar(AutheticationDTO request) {
+    /**
+     * @param clientIp IP de origem da requisição, usado pelo {@link LoginThrottle} junto com o login.
+     */
+    public LoginResponseDTO autenticar(AutheticationDTO request, String clientIp) {
+        loginThrottle.acquire(request.login(), clientIp);
+        User user;
         try {
             var usernamePassword = new UsernamePasswordAuthenticationToken(
                     request.login(),
@@ -229,71 +287,45 @@ public class UserService  {
             );
 
             var auth = authenticationManager.authenticate(usernamePassword);
-            UserDetails userDetails = (UserDetails) auth.getPrincipal();
-            User user = loginComUsernameOuEmail(userDetails.getUsername());
-            String token = tokenService.generateToken(user);
-
-            return new LoginResponseDTO(token, user.getId(), user.getRole() , user.getUsername() , user.getEmail());
-
+            user = (User) auth.getPrincipal();
         } catch (AuthenticationException e) {
             throw new UserExceptions.PasswordOrLoginInvalidException("Credenciais inválidas");
         }
-    }
-
-    public User loginComUsernameOuEmail(String login) {
-        User user = null;
-
-        if (userRepository.existsByEmail(login)) {
-            user = userQueryService.findByEmail(login);
-        } else if (userRepository.existsByUsername(login)) {
-            user = userQueryService.findByUsername(login);
-        }
-
-        if (user == null) {
-            log.warn("Usuário não encontrado com o login: {}", login);
-            throw new UserExceptions.UserLoginNotFoundException("Usuário não encontrado com o login: " + login);
-        }
 
         if (!userValidStatus(user)) {
-            log.warn("Usuário com login {} está inativo ou bloqueado.", login);
-            throw new UserExceptions.UserStateException("Usuário com login " + login + " está inativo ou bloqueado.");
+            log.warn("Usuário com login {} está inativo ou bloqueado.", request.login());
+            throw new UserExceptions.UserStateException("Usuário com login " + request.login() + " está inativo ou bloqueado.");
         }
 
-        return user;
+        String token = tokenService.generateToken(user);
+
+        return new LoginResponseDTO(token, user.getId(), user.getRole() , user.getUsername() , user.getEmail());
     }
 
     public boolean userValidStatus(User user) {
         return user.getStatus() == UserState.ACTIVE;
     }
 
-    public PaginatedResult<UserResponseDTO> listUsers(String lastKey, int limit) {
-        ScanEnhancedRequest request = ScanEnhancedRequest.builder()
-                .limit(limit)
-                .exclusiveStartKey(lastKey != null
-                        ? Map.of("id", AttributeValue.fromS(lastKey))
-                        : null)
-                .build();
-
-        var scanResult = userTable.scan(request);
-
-        var pageIterator = scanResult.iterator();
-        if (!pageIterator.hasNext()) {
-            return new PaginatedResult<>(List.of(), null);
-        }
-
-        var page = pageIterator.next();
-        List<User> users = page.items();
-
-        String nextKey = null;
-        if (page.lastEvaluatedKey() != null && !page.lastEvaluatedKey().isEmpty()) {
-            nextKey = page.lastEvaluatedKey().get("id").s();
-        }
+    /**
+     * Lista usuários; com {@code status} e/ou {@code role} a listagem vem do índice correspondente, do cadastro
+     * mais recente para o mais antigo. O {@code lastKey} é o cursor opaco devolvido em {@code nextKey} e só vale
+     * para os mesmos filtros.
+     */
+    public PaginatedResult<UserResponseDTO> listUsers(String lastKey, int limit, UserState status, UserRole role) {
+        int pageSize = pagination.pageSize(limit);
+        return UserPagination.join(pagination.load(UserPagination.listingOf(status, role), lastKey, pageSize,
+                startKey -> CompletableFuture.completedFuture(status == null && role == null
+                        ? userRepository.findPage(startKey, pageSize)
+                        : userRepository.findPageByStatusOrRole(status, role, startKey, pageSize))));
+    }
 
-        List<UserResponseDTO> dtos = users.stream()
+    /**
+     * Busca vários usuários de uma vez, na ordem dos ids informados; ids inexistentes são omitidos.
+     */
+    public List<UserResponseDTO> findUsersByIds(List<String> ids) {
+        return userRepository.findAllByIds(ids).stream()
                 .map(userMapper::toResponseDto)
                 .toList();
-
-        return new PaginatedResult<>(dtos, nextKey);
     }
 
     public UserResponseDTO getUserById(String username) {
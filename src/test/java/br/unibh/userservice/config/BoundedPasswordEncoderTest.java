@@ -0,0 +1,60 @@
+package br.unibh.userservice.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class BoundedPasswordEncoderTest {
+
+    private final BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(5, 2, 4, Duration.ofSeconds(5));
+
+    @AfterEach
+    void shutdown() {
+        encoder.destroy();
+    }
+
+    @Test
+    @DisplayName("Deve gerar e validar hashes no pool dedicado")
+    void shouldEncodeAndMatch() {
+        // Act
+        String hash = encoder.encode("senha-forte");
+
+        // Assert
+        assertTrue(encoder.matches("senha-forte", hash));
+        assertFalse(encoder.matches("senha-errada", hash));
+        assertEquals(5, BoundedPasswordEncoder.strengthOf(hash));
+    }
+
+    @Test
+    @DisplayName("Deve pedir rehash só de senhas gravadas com custo BCrypt menor que o atual")
+    void shouldUpgradeOnlyWeakerHashes() {
+        // Arrange
+        String hashAntigo = new BCryptPasswordEncoder(4).encode("senha");
+        String hashAtual = encoder.encode("senha");
+        String hashMaisForte = new BCryptPasswordEncoder(6).encode("senha");
+
+        // Assert
+        assertTrue(encoder.upgradeEncoding(hashAntigo));
+        assertFalse(encoder.upgradeEncoding(hashAtual));
+        assertFalse(encoder.upgradeEncoding(hashMaisForte));
+        assertFalse(encoder.upgradeEncoding("texto-puro"));
+    }
+
+    @Test
+    @DisplayName("Não deve calibrar o custo abaixo do mínimo configurado")
+    void shouldNotCalibrateBelowMinimum() {
+        // Act
+        int strength = BoundedPasswordEncoder.calibrateStrength(Duration.ofMillis(1), 12);
+
+        // Assert
+        assertEquals(12, strength);
+    }
+}
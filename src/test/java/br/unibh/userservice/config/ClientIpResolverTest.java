@@ -0,0 +1,75 @@
+package br.unibh.userservice.config;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import br.unibh.userservice.exception.ServiceExceptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ClientIpResolverTest {
+
+    private final ClientIpResolver resolver = new ClientIpResolver("10.0.0.0/8, ::1/128");
+
+    private static MockHttpServletRequest request(String remoteAddr, String... forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+        request.setRemoteAddr(remoteAddr);
+        for (String header : forwardedFor) {
+            request.addHeader(ClientIpResolver.FORWARDED_FOR, header);
+        }
+        return request;
+    }
+
+    @Test
+    @DisplayName("Deve limitar separadamente dois clientes atrás do mesmo load balancer")
+    void shouldThrottleClientsBehindSameProxyIndependently() {
+        // Arrange
+        LoginThrottle throttle = new LoginThrottle(new SimpleMeterRegistry(), true,
+                5, 60_000, 100, 1_000, 600_000, 1_000, 3, 900_000);
+        String primeiro = resolver.resolve(request("10.0.0.5", "203.0.113.1"));
+        String segundo = resolver.resolve(request("10.0.0.5", "203.0.113.2"));
+        IntStream.range(0, 100).forEach(i -> throttle.acquire("login" + i, primeiro));
+
+        // Act
+        var recusa = assertThrows(ServiceExceptions.TooManyRequestsException.class,
+                () -> throttle.acquire("outro", primeiro));
+
+        // Assert
+        assertEquals("203.0.113.1", primeiro);
+        assertEquals(LoginThrottle.MESSAGE, recusa.getMessage());
+        assertDoesNotThrow(() -> throttle.acquire("outro", segundo));
+    }
+
+    @Test
+    @DisplayName("Deve ignorar o que o cliente escreve à esquerda do X-Forwarded-For")
+    void shouldIgnoreSpoofedLeftmostHop() {
+        // Arrange
+        MockHttpServletRequest forjado = request("10.0.0.5", "1.2.3.4, 203.0.113.7", "10.0.0.9");
+
+        // Act
+        String ip = resolver.resolve(forjado);
+
+        // Assert
+        assertEquals("203.0.113.7", ip);
+    }
+
+    @Test
+    @DisplayName("Deve usar o IP da conexão quando ela não vem de um proxy confiável")
+    void shouldUseRemoteAddrFromUntrustedPeer() {
+        // Arrange
+        MockHttpServletRequest direto = request("198.51.100.3", "203.0.113.1");
+
+        // Act
+        String ip = resolver.resolve(direto);
+
+        // Assert
+        assertEquals("198.51.100.3", ip);
+        assertEquals("10.0.0.5", resolver.resolve(request("10.0.0.5")));
+    }
+}
@@ -0,0 +1,80 @@
+package br.unibh.userservice.config;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.exception.ServiceExceptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LoginThrottleTest {
+
+    private final LoginThrottle throttle = new LoginThrottle(new SimpleMeterRegistry(), true,
+            5, 60_000, 100, 1_000, 600_000, 1_000, 3, 900_000);
+
+    @Test
+    @DisplayName("Deve aceitar só a capacidade do balde do login, mesmo com tentativas em paralelo")
+    void shouldLimitAttemptsPerLogin() {
+        // Arrange
+        AtomicInteger aceitas = new AtomicInteger();
+
+        // Act
+        IntStream.range(0, 50).parallel().forEach(i -> {
+            try {
+                throttle.acquire(" Fulano ", "10.0.0." + i);
+                aceitas.incrementAndGet();
+            } catch (ServiceExceptions.TooManyRequestsException e) {
+                assertTrue(e.getRetryAfterSeconds() >= 1);
+            }
+        });
+
+        // Assert
+        assertEquals(5, aceitas.get());
+        assertThrows(ServiceExceptions.TooManyRequestsException.class, () -> throttle.acquire("fulano", "10.0.1.1"));
+        assertDoesNotThrow(() -> throttle.acquire("ciclano", "10.0.1.1"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar o usuário com falhas demais só enquanto a janela de bloqueio durar")
+    void shouldLockOnlyWithinWindow() {
+        // Arrange
+        User bloqueado = new User();
+        bloqueado.setFailedLogins(3L);
+        bloqueado.setLastFailedLoginAt(LocalDateTime.now());
+        User expirado = new User();
+        expirado.setFailedLogins(3L);
+        expirado.setLastFailedLoginAt(LocalDateTime.now().minusHours(1));
+
+        // Act
+        var recusa = assertThrows(ServiceExceptions.TooManyRequestsException.class, () -> throttle.checkNotLocked(bloqueado));
+
+        // Assert
+        assertTrue(recusa.getRetryAfterSeconds() > 800);
+        assertDoesNotThrow(() -> throttle.checkNotLocked(expirado));
+    }
+
+    @Test
+    @DisplayName("Deve limitar as consultas de disponibilidade por IP sem gastar as fichas de login do mesmo IP")
+    void shouldLimitAvailabilityPerIp() {
+        // Arrange
+        IntStream.range(0, 100).forEach(i -> throttle.acquireAvailability("10.0.2.1"));
+
+        // Act
+        var recusa = assertThrows(ServiceExceptions.TooManyRequestsException.class,
+                () -> throttle.acquireAvailability("10.0.2.1"));
+
+        // Assert
+        assertEquals(LoginThrottle.AVAILABILITY_MESSAGE, recusa.getMessage());
+        assertDoesNotThrow(() -> throttle.acquireAvailability("10.0.2.2"));
+        assertDoesNotThrow(() -> throttle.acquire("beltrano", "10.0.2.1"));
+    }
+}
@@ -0,0 +1,109 @@
+package br.unibh.userservice.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
+import br.unibh.userservice.repository.DynamoDbUserRepository;
+import br.unibh.userservice.repository.UniqueKeyFilter;
+import br.unibh.userservice.service.UserBatchLoader;
+import br.unibh.userservice.service.UserIdentityMap;
+import br.unibh.userservice.service.UserQueryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+class SecurityFilterTest {
+
+    private static final int CLIENTES = 8;
+
+    @Test
+    @DisplayName("Deve fazer uma só leitura consistente para requisições simultâneas com o token da mesma conta")
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void shouldCollapseConcurrentLookupsOfSameToken() throws Exception {
+        // Arrange
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DynamoDbEnhancedClient enhancedClient = mock(DynamoDbEnhancedClient.class);
+        when(enhancedClient.table(anyString(), any())).thenReturn((DynamoDbTable) mock(DynamoDbTable.class));
+        DynamoDbTable<User> userTable = mock(DynamoDbTable.class);
+        User user = new User();
+        user.setId("user-1");
+        user.setUsername("alice");
+        user.setEmail("alice@test.com");
+        user.setRole(UserRole.USER);
+        user.setStatus(UserState.ACTIVE);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userTable.getItem(any(GetItemEnhancedRequest.class))).thenAnswer(invocation -> {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return user;
+        });
+        DynamoDbUserRepository repository = new DynamoDbUserRepository(enhancedClient, mock(DynamoDbClient.class),
+                userTable, meterRegistry, mock(UniqueKeyFilter.class), "user", 1, 1);
+        TokenService tokenService = new TokenService("segredo-de-teste", 100, meterRegistry);
+        UserIdentityMap identityMap = new UserIdentityMap();
+        SecurityFilter filter = new SecurityFilter(tokenService,
+                new UserQueryService(repository, identityMap, mock(UserBatchLoader.class)),
+                new TokenRevocationRegistry(mock(DynamoDbClient.class), "user", true), identityMap, false,
+                mock(ObjectProvider.class));
+        String token = tokenService.generateToken(user);
+        ExecutorService clientes = Executors.newFixedThreadPool(CLIENTES);
+        List<Future<Integer>> respostas = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < CLIENTES; i++) {
+            respostas.add(clientes.submit(() -> {
+                try {
+                    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/user-1");
+                    request.addHeader("Authorization", "Bearer " + token);
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+                    filter.doFilter(request, response, new MockFilterChain());
+                    return response.getStatus();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("users.lookups.coalesced", "lookup", "byIdConsistent", "client", "sync").count() < CLIENTES - 1
+                && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // Assert
+        for (Future<Integer> resposta : respostas) {
+            assertEquals(200, resposta.get(5, TimeUnit.SECONDS));
+        }
+        verify(userTable, times(1)).getItem(any(GetItemEnhancedRequest.class));
+        assertEquals(CLIENTES - 1,
+                meterRegistry.counter("users.lookups.coalesced", "lookup", "byIdConsistent", "client", "sync").count());
+        clientes.shutdown();
+        repository.destroy();
+    }
+}
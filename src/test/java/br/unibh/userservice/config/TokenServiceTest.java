@@ -0,0 +1,73 @@
+package br.unibh.userservice.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TokenServiceTest {
+
+    private final TokenService tokenService = new TokenService("segredo-de-teste", 100, new SimpleMeterRegistry());
+
+    @Test
+    @DisplayName("Deve reaproveitar a verificação de um token já validado")
+    void shouldServeRepeatedTokenFromCache() {
+        // Arrange
+        String token = tokenService.generateToken(user());
+
+        // Act
+        String primeiro = tokenService.validateToken(token);
+        String segundo = tokenService.validateToken(token);
+
+        // Assert
+        assertEquals("grace", primeiro);
+        assertEquals("grace", segundo);
+        assertEquals(new TokenService.CacheStats(1, 1), tokenService.verifiedTokenCacheStats());
+    }
+
+    @Test
+    @DisplayName("Não deve aceitar token assinado com outro segredo")
+    void shouldRejectTokenFromAnotherSecret() {
+        // Arrange
+        TokenService outroEmissor = new TokenService("outro-segredo", 100, new SimpleMeterRegistry());
+        String token = outroEmissor.generateToken(user());
+
+        // Act + Assert
+        assertThrows(JWTVerificationException.class, () -> tokenService.validateToken(token));
+    }
+
+    @Test
+    @DisplayName("Deve montar o principal a partir das claims do token")
+    void shouldBuildPrincipalFromClaims() {
+        // Arrange
+        User user = user();
+        user.setTokenVersion(3L);
+
+        // Act
+        var jwt = tokenService.verify(tokenService.generateToken(user));
+        User principal = tokenService.toPrincipal(jwt);
+
+        // Assert
+        assertEquals("user-606", principal.getId());
+        assertEquals(UserRole.ADMIN, principal.getRole());
+        assertEquals(UserState.ACTIVE, principal.getStatus());
+        assertEquals(3L, principal.getTokenVersion());
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId("user-606");
+        user.setUsername("grace");
+        user.setEmail("grace@test.com");
+        user.setRole(UserRole.ADMIN);
+        user.setStatus(UserState.ACTIVE);
+        return user;
+    }
+}
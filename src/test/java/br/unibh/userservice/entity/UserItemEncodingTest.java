@@ -0,0 +1,110 @@
+package br.unibh.userservice.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+class UserItemEncodingTest {
+
+    private static final TableSchema<User> USER_SCHEMA = UserTableSchema.USER;
+    private static final List<String> HISTORICO = List.of(
+            "$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy",
+            "$2b$12$abcdefghijklmnopqrstuu5s2v8.ISkO4I2Fz0kPZ5ZK7wK9v8fhO",
+            "{noop}senha-fora-do-formato-bcrypt");
+
+    @Test
+    @DisplayName("Deve ler o formato compacto e o formato antigo em texto")
+    void shouldReadCompactAndLegacyItems() {
+        // Arrange
+        User user = sampleUser();
+        Map<String, AttributeValue> legado = legacyItem(user);
+
+        // Act
+        User lidoCompacto = USER_SCHEMA.mapToItem(USER_SCHEMA.itemToMap(user, true));
+        User lidoLegado = USER_SCHEMA.mapToItem(legado);
+
+        // Assert
+        assertEquals(HISTORICO, lidoCompacto.getPasswordHistory());
+        assertEquals(user.getUpdatedAt(), lidoCompacto.getUpdatedAt());
+        assertEquals(HISTORICO, lidoLegado.getPasswordHistory());
+        assertEquals(user.getUpdatedAt(), lidoLegado.getUpdatedAt());
+    }
+
+    @Test
+    @DisplayName("Deve gravar o usuário em menos bytes que o formato antigo")
+    void shouldEncodeSmallerThanLegacyItem() {
+        // Arrange
+        User user = sampleUser();
+
+        // Act
+        Map<String, AttributeValue> compacto = USER_SCHEMA.itemToMap(user, true);
+        Map<String, AttributeValue> legado = legacyItem(user);
+
+        // Assert
+        assertEquals("1792245802512", compacto.get("updatedAt").n());
+        assertEquals(2 * 41 + 3 + "{noop}senha-fora-do-formato-bcrypt".length(), compacto.get("passwordHistory").b().asByteArray().length);
+        assertTrue(itemSize(compacto) < itemSize(legado),
+                "Compacto: " + itemSize(compacto) + " bytes, antigo: " + itemSize(legado) + " bytes");
+    }
+
+    private static User sampleUser() {
+        User user = new User();
+        user.setId("0b7e4f0e-3c1a-4a8e-9a55-2f1d6c0f5b21");
+        user.setUsername("joaosilva");
+        user.setEmail("joao.silva@example.com");
+        user.setPassword(HISTORICO.get(0));
+        user.setRole(UserRole.USER);
+        user.setStatus(UserState.ACTIVE);
+        user.setCreatedAt(LocalDateTime.of(2026, 10, 17, 14, 3, 22, 512_000_000));
+        user.setUpdatedAt(LocalDateTime.of(2026, 10, 17, 14, 3, 22, 512_000_000));
+        user.setPasswordHistory(HISTORICO);
+        user.setTokenVersion(3L);
+        user.setVersion(7L);
+        return user;
+    }
+
+    /** Item como era gravado antes dos conversores: data em texto ISO e histórico em lista de strings. */
+    private static Map<String, AttributeValue> legacyItem(User user) {
+        Map<String, AttributeValue> item = new HashMap<>(USER_SCHEMA.itemToMap(user, true));
+        item.put("updatedAt", AttributeValue.fromS(user.getUpdatedAt().toString()));
+        item.put("passwordHistory", AttributeValue.fromL(user.getPasswordHistory().stream()
+                .map(AttributeValue::fromS)
+                .toList()));
+        return item;
+    }
+
+    /** Tamanho do item pelas regras de cobrança do DynamoDB. */
+    private static int itemSize(Map<String, AttributeValue> item) {
+        return item.entrySet().stream()
+                .mapToInt(entry -> entry.getKey().getBytes(StandardCharsets.UTF_8).length + valueSize(entry.getValue()))
+                .sum();
+    }
+
+    private static int valueSize(AttributeValue value) {
+        if (value.s() != null) {
+            return value.s().getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (value.n() != null) {
+            String digits = value.n().replace("-", "").replace(".", "").replaceAll("^0+|0+$", "");
+            return (Math.max(digits.length(), 1) + 1) / 2 + 1;
+        }
+        if (value.b() != null) {
+            return value.b().asByteArray().length;
+        }
+        if (value.hasL()) {
+            return 3 + value.l().stream().mapToInt(element -> 1 + valueSize(element)).sum();
+        }
+        return 1;
+    }
+}
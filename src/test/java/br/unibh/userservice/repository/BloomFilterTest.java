@@ -0,0 +1,40 @@
+package br.unibh.userservice.repository;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("Deve reconhecer todo valor incluído, mesmo com inclusões em paralelo")
+    void shouldNeverReturnFalseNegatives() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+
+        // Act
+        IntStream.range(0, 100_000).parallel().forEach(i -> filter.add("USERNAME#user" + i));
+
+        // Assert
+        assertTrue(IntStream.range(0, 100_000).allMatch(i -> filter.mightContain("USERNAME#user" + i)));
+    }
+
+    @Test
+    @DisplayName("Deve manter a taxa de falso positivo perto da configurada")
+    void shouldKeepFalsePositiveRate() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        IntStream.range(0, 100_000).forEach(i -> filter.add("EMAIL#user" + i + "@test.com"));
+
+        // Act
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain("EMAIL#outro" + i + "@test.com"))
+                .count();
+
+        // Assert
+        assertTrue(falsePositives < 1_500, "Falsos positivos: " + falsePositives);
+    }
+}
@@ -0,0 +1,106 @@
+package br.unibh.userservice.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserState;
+import br.unibh.userservice.service.UserBatchLoader;
+import br.unibh.userservice.service.UserIdentityMap;
+import br.unibh.userservice.service.UserQueryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CachingUserRepositoryTest {
+
+    private final UserRepository dynamoDb = mock(UserRepository.class);
+    private final LoopbackUserCacheInvalidationBroadcaster broadcaster = new LoopbackUserCacheInvalidationBroadcaster();
+
+    private CachingUserRepository newCache() {
+        return new CachingUserRepository(dynamoDb, broadcaster, new SimpleMeterRegistry(), 100, 60_000, 1_000);
+    }
+
+    private static User user(UserState status) {
+        User user = new User();
+        user.setId("user-1");
+        user.setUsername("alice");
+        user.setEmail("alice@test.com");
+        user.setPassword("hash_alice");
+        user.setStatus(status);
+        user.setVersion(1L);
+        return user;
+    }
+
+    @Test
+    @DisplayName("Deve servir do cache as buscas por id, username e email depois da primeira leitura")
+    void shouldServeAllKeysFromOneLoad() {
+        // Arrange
+        CachingUserRepository cache = newCache();
+        when(dynamoDb.findByUsername("Alice")).thenReturn(Optional.of(user(UserState.ACTIVE)));
+        cache.findByUsername("Alice").get().setStatus(UserState.BLOCKED);
+
+        // Act
+        User byId = cache.findById("user-1").get();
+        User byEmail = cache.findByEmail(" ALICE@test.com ").get();
+        User byUsername = cache.findByUsername("alice").get();
+
+        // Assert
+        assertEquals(UserState.ACTIVE, byId.getStatus(), "Alterações de quem chamou não podem chegar ao cache");
+        assertEquals("user-1", byEmail.getId());
+        assertEquals("hash_alice", byUsername.getPassword());
+        verify(dynamoDb, times(1)).findByUsername("Alice");
+        verify(dynamoDb, never()).findById("user-1");
+        verify(dynamoDb, never()).findByEmail(" ALICE@test.com ");
+    }
+
+    @Test
+    @DisplayName("Deve invalidar as três chaves ao salvar, nesta e nas outras réplicas")
+    void shouldInvalidateAllKeysOnEveryReplica() {
+        // Arrange
+        CachingUserRepository replicaA = newCache();
+        CachingUserRepository replicaB = newCache();
+        when(dynamoDb.findById("user-1")).thenReturn(Optional.of(user(UserState.ACTIVE)));
+        replicaA.findById("user-1");
+        replicaB.findById("user-1");
+        User blocked = user(UserState.BLOCKED);
+        when(dynamoDb.save(blocked)).thenReturn(blocked);
+        when(dynamoDb.findByEmail("alice@test.com")).thenReturn(Optional.of(blocked));
+
+        // Act
+        replicaA.save(blocked);
+
+        // Assert
+        assertEquals(UserState.BLOCKED, replicaB.findByEmail("alice@test.com").get().getStatus());
+        assertEquals(UserState.BLOCKED, replicaA.findByEmail("alice@test.com").get().getStatus());
+        verify(dynamoDb, times(2)).findByEmail("alice@test.com");
+    }
+
+    @Test
+    @DisplayName("Deve autenticar pelo login com uma só leitura do índice, sem responder do cache")
+    void shouldAuthenticateWithOneIndexReadOffCache() {
+        // Arrange
+        CachingUserRepository cache = newCache();
+        UserQueryService queryService = new UserQueryService(cache, new UserIdentityMap(), mock(UserBatchLoader.class));
+        when(dynamoDb.findByUsername("alice")).thenReturn(Optional.of(user(UserState.ACTIVE)));
+        cache.findByUsername("alice");
+        when(dynamoDb.findByUsername("alice")).thenReturn(Optional.of(user(UserState.BLOCKED)));
+
+        // Act
+        User autenticado = queryService.findForAuthentication(null, "alice").get();
+
+        // Assert
+        assertEquals(UserState.BLOCKED, autenticado.getStatus());
+        verify(dynamoDb, times(2)).findByUsername("alice");
+        verify(dynamoDb, never()).findByIdConsistent(anyString());
+        verify(dynamoDb, never()).findById(anyString());
+    }
+}
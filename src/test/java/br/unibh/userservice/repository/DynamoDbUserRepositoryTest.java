@@ -1,11 +1,17 @@
 package br.unibh.userservice.repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.AfterAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
@@ -17,10 +23,15 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
 import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserRole;
 import br.unibh.userservice.entity.UserState;
+import br.unibh.userservice.entity.UserTableSchema;
+import br.unibh.userservice.entity.UserUniqueKey;
+import br.unibh.userservice.entity.UserView;
+import br.unibh.userservice.exception.UserExceptions;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
 import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
@@ -45,7 +56,7 @@ class DynamoDbUserRepositoryTest {
 
     @BeforeAll
     void setupTable() {
-        DynamoDbTable<User> userTestTable = enhancedClient.table(testTableName, TableSchema.fromBean(User.class));
+        DynamoDbTable<User> userTestTable = enhancedClient.table(testTableName, UserTableSchema.USER);
         try {
             userTestTable.createTable(builder -> builder
                     .provisionedThroughput(ProvisionedThroughput.builder().readCapacityUnits(1L).writeCapacityUnits(1L).build())
@@ -162,4 +173,233 @@ class DynamoDbUserRepositoryTest {
         // Assert
         assertEquals(UserState.INACTIVE, updatedUser.getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Deve encontrar o usuário pelo índice de username e de email")
+    void shouldFindUserByUsernameAndEmailIndexes() {
+        // Arrange
+        User user = new User();
+        user.setId("user-303");
+        user.setUsername("dave");
+        user.setEmail("dave@test.com");
+        user.setPassword("hash_dave_303");
+        user.setStatus(UserState.ACTIVE);
+        // create grava também as reservas, que é onde existsBy* consulta
+        userRepository.create(user);
+
+        // Act
+        Optional<User> byUsername = userRepository.findByUsername(" Dave ");
+        Optional<User> byEmail = userRepository.findByEmail("DAVE@test.com");
+
+        // Assert
+        assertTrue(byUsername.isPresent());
+        assertTrue(byEmail.isPresent());
+        assertEquals("user-303", byUsername.get().getId());
+        assertEquals("user-303", byEmail.get().getId());
+        assertTrue(userRepository.existsByUsername("dave"));
+        assertTrue(userRepository.existsByEmail(" DAVE@test.com "));
+        assertFalse(userRepository.existsByEmail("ninguem@test.com"));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar o cadastro com username ou email já reservados")
+    void shouldRejectDuplicatedUniqueKeysOnCreate() {
+        // Arrange
+        User original = new User();
+        original.setId("user-404");
+        original.setUsername("erin");
+        original.setEmail("erin@test.com");
+        original.setPassword("hash_erin_404");
+        original.setStatus(UserState.ACTIVE);
+        userRepository.create(original);
+
+        User mesmoEmail = new User();
+        mesmoEmail.setId("user-405");
+        mesmoEmail.setUsername("erin2");
+        mesmoEmail.setEmail("erin@test.com");
+        mesmoEmail.setPassword("hash_erin_405");
+        mesmoEmail.setStatus(UserState.ACTIVE);
+
+        // Act + Assert
+        UserExceptions.UserAlreadyExistsException ex = assertThrows(UserExceptions.UserAlreadyExistsException.class,
+                () -> userRepository.create(mesmoEmail));
+        assertEquals("Email já cadastrado.", ex.getMessage());
+        assertTrue(userRepository.findById("user-405").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve liberar o username antigo ao trocar de username")
+    void shouldSwapUsernameReservation() {
+        // Arrange
+        User user = new User();
+        user.setId("user-505");
+        user.setUsername("frank");
+        user.setEmail("frank@test.com");
+        user.setPassword("hash_frank_505");
+        user.setStatus(UserState.ACTIVE);
+        userRepository.create(user);
+
+        // Act
+        userRepository.updateUniqueField(user, UserField.USERNAME, "frankie", true);
+
+        User outro = new User();
+        outro.setId("user-506");
+        outro.setUsername("frank");
+        outro.setEmail("outro.frank@test.com");
+        outro.setPassword("hash_frank_506");
+        outro.setStatus(UserState.ACTIVE);
+        userRepository.create(outro);
+
+        // Assert
+        assertEquals("frankie", userRepository.findById("user-505").get().getUsername());
+        assertEquals("user-506", userRepository.findByUsername("frank").get().getId());
+    }
+
+    @Test
+    @DisplayName("Deve recusar a exclusão de um usuário lido antes de trocar de username, sem liberar a reserva nova")
+    void shouldRejectDeleteOfUserReadBeforeRename() {
+        // Arrange
+        User user = new User();
+        user.setId("user-507");
+        user.setUsername("gina");
+        user.setEmail("gina@test.com");
+        user.setPassword("hash_gina_507");
+        user.setStatus(UserState.ACTIVE);
+        userRepository.create(user);
+        User lidoAntes = userRepository.findById("user-507").get();
+        userRepository.updateUniqueField(user, UserField.USERNAME, "georgina", false);
+
+        // Act
+        assertThrows(UserExceptions.ConcurrentUpdateException.class, () -> userRepository.delete(lidoAntes));
+
+        // Assert
+        assertEquals("georgina", userRepository.findById("user-507").get().getUsername());
+        assertEquals(Set.of(UserUniqueKey.usernameKey("georgina")),
+                userRepository.findReservedUniqueKeys(List.of(UserUniqueKey.usernameKey("georgina"))));
+    }
+
+    @Test
+    @DisplayName("Deve atualizar apenas os campos informados e devolver o usuário completo")
+    void shouldUpdateOnlyGivenFields() {
+        // Arrange
+        User user = new User();
+        user.setId("user-606");
+        user.setUsername("grace");
+        user.setEmail("grace@test.com");
+        user.setPassword("hash_grace_606");
+        user.setStatus(UserState.ACTIVE);
+        userRepository.create(user);
+
+        // Act
+        User atualizado = userRepository.updateFields("user-606", Map.of(UserField.STATUS, UserState.BLOCKED), true);
+
+        // Assert
+        assertEquals(UserState.BLOCKED, atualizado.getStatus());
+        assertEquals("hash_grace_606", atualizado.getPassword());
+        assertEquals(1L, atualizado.getTokenVersion());
+        assertThrows(UserExceptions.UserNotFoundException.class,
+                () -> userRepository.updateFields("user-inexistente", Map.of(UserField.STATUS, UserState.BLOCKED), false));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar a gravação de um usuário lido em uma versão desatualizada")
+    void shouldRejectStaleVersion() {
+        // Arrange
+        User user = new User();
+        user.setId("user-707");
+        user.setUsername("heidi");
+        user.setEmail("heidi@test.com");
+        user.setPassword("hash_heidi_707");
+        user.setStatus(UserState.ACTIVE);
+        userRepository.create(user);
+        User copiaDesatualizada = userRepository.findById("user-707").get();
+
+        // Act
+        userRepository.updateFields(user, Map.of(UserField.STATUS, UserState.INACTIVE), false);
+
+        // Assert
+        assertThrows(UserExceptions.ConcurrentUpdateException.class,
+                () -> userRepository.updateFields(copiaDesatualizada, Map.of(UserField.PASSWORD, "hash_novo"), false));
+        copiaDesatualizada.setStatus(UserState.BLOCKED);
+        assertThrows(UserExceptions.ConcurrentUpdateException.class, () -> userRepository.save(copiaDesatualizada));
+        assertEquals(UserState.INACTIVE, userRepository.findById("user-707").get().getStatus());
+    }
+
+    @Test
+    @DisplayName("Deve gravar usuários em lote junto com as reservas de username e email")
+    void shouldCreateUsersInBatch() {
+        // Arrange
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            User user = new User();
+            user.setId("user-808-" + i);
+            user.setUsername("import" + i);
+            user.setEmail("import" + i + "@test.com");
+            user.setPassword("hash_import_" + i);
+            user.setStatus(UserState.ACTIVE);
+            users.add(user);
+        }
+
+        // Act
+        Map<String, RuntimeException> falhas = userRepository.createAll(users);
+
+        // Assert
+        assertTrue(falhas.isEmpty());
+        assertEquals(1L, userRepository.findById("user-808-9").get().getVersion());
+        assertEquals(Set.of(UserUniqueKey.usernameKey("import3"), UserUniqueKey.emailKey("import7@test.com")),
+                userRepository.findReservedUniqueKeys(List.of(
+                        UserUniqueKey.usernameKey("import3"),
+                        UserUniqueKey.emailKey("import7@test.com"),
+                        UserUniqueKey.usernameKey("livre"))));
+    }
+
+    @Test
+    @DisplayName("Deve buscar vários usuários por id na ordem pedida, omitindo os inexistentes")
+    void shouldFindAllByIdsInRequestOrder() {
+        // Arrange
+        for (String nome : List.of("ivan", "judy", "kevin")) {
+            User user = new User();
+            user.setId("user-909-" + nome);
+            user.setUsername(nome);
+            user.setEmail(nome + "@test.com");
+            user.setPassword("hash_" + nome);
+            user.setStatus(UserState.ACTIVE);
+            userRepository.create(user);
+        }
+
+        // Act
+        List<UserView> encontrados = userRepository.findAllByIds(List.of(
+                "user-909-kevin", "user-inexistente", "user-909-ivan", UserUniqueKey.usernameKey("judy"), "user-909-judy"));
+
+        // Assert
+        assertEquals(List.of("user-909-kevin", "user-909-ivan", "user-909-judy"),
+                encontrados.stream().map(UserView::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Deve listar pelo índice de papel do cadastro mais recente para o mais antigo")
+    void shouldListByRoleNewestFirst() {
+        // Arrange
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < 3; i++) {
+            User user = new User();
+            user.setId("user-1010-" + i);
+            user.setUsername("admin" + i);
+            user.setEmail("admin" + i + "@test.com");
+            user.setPassword("hash_admin_" + i);
+            user.setStatus(i == 1 ? UserState.BLOCKED : UserState.ACTIVE);
+            user.setRole(UserRole.ADMIN);
+            user.setCreatedAt(base.plusDays(i));
+            userRepository.create(user);
+        }
+
+        // Act
+        Page<UserView> admins = userRepository.findPageByStatusOrRole(null, UserRole.ADMIN, null, 10);
+        Page<UserView> adminsBloqueados = userRepository.findPageByStatusOrRole(UserState.BLOCKED, UserRole.ADMIN, null, 10);
+
+        // Assert
+        assertEquals(List.of("user-1010-2", "user-1010-1", "user-1010-0"),
+                admins.items().stream().map(UserView::getId).toList());
+        assertEquals(List.of("user-1010-1"), adminsBloqueados.items().stream().map(UserView::getId).toList());
+    }
+}
@@ -0,0 +1,106 @@
+package br.unibh.userservice.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import br.unibh.userservice.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<Optional<User>> lookups = SingleFlight.forUserLookup(meterRegistry, "byId", "sync");
+
+    @Test
+    @DisplayName("Deve fazer uma só leitura para chamadas simultâneas do mesmo id e entregar uma cópia a cada uma")
+    void shouldCollapseConcurrentLookups() throws Exception {
+        // Arrange
+        User user = new User();
+        user.setId("user-1");
+        user.setUsername("alice");
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch leaderReading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Optional<User>> leader = CompletableFuture.supplyAsync(() -> lookups.execute("user-1", () -> {
+            reads.incrementAndGet();
+            leaderReading.countDown();
+            await(release);
+            return Optional.of(user);
+        }));
+        assertTrue(leaderReading.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<Optional<User>> follower = CompletableFuture.supplyAsync(() -> lookups.execute("user-1", () -> {
+            reads.incrementAndGet();
+            return Optional.of(user);
+        }));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("users.lookups.coalesced", "lookup", "byId", "client", "sync").count() == 0
+                && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // Assert
+        User fromLeader = leader.get(5, TimeUnit.SECONDS).orElseThrow();
+        User fromFollower = follower.get(5, TimeUnit.SECONDS).orElseThrow();
+        assertEquals(1, reads.get());
+        assertEquals("alice", fromFollower.getUsername());
+        assertNotSame(fromLeader, fromFollower);
+        assertNotSame(user, fromLeader);
+    }
+
+    @Test
+    @DisplayName("Não deve juntar quem chega depois de uma gravação a uma leitura que começou antes dela")
+    void shouldNotJoinReadStartedBeforeWrite() throws Exception {
+        // Arrange
+        User antes = new User();
+        antes.setId("user-1");
+        antes.setUsername("alice");
+        User depois = new User();
+        depois.setId("user-1");
+        depois.setUsername("alice-nova");
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch leaderReading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Optional<User>> antiga = CompletableFuture.supplyAsync(() -> lookups.execute("user-1", () -> {
+            reads.incrementAndGet();
+            leaderReading.countDown();
+            await(release);
+            return Optional.of(antes);
+        }));
+        assertTrue(leaderReading.await(5, TimeUnit.SECONDS));
+
+        // Act
+        lookups.forget("user-1");
+        Optional<User> aposGravacao = lookups.execute("user-1", () -> {
+            reads.incrementAndGet();
+            return Optional.of(depois);
+        });
+        release.countDown();
+
+        // Assert
+        assertEquals("alice-nova", aposGravacao.orElseThrow().getUsername());
+        assertEquals("alice", antiga.get(5, TimeUnit.SECONDS).orElseThrow().getUsername());
+        assertEquals(2, reads.get());
+        assertEquals(0, meterRegistry.counter("users.lookups.coalesced", "lookup", "byId", "client", "sync").count());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package br.unibh.userservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserBatchLoaderTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private static User user(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("nome-" + id);
+        return user;
+    }
+
+    @Test
+    @DisplayName("Deve juntar as buscas da mesma janela num só lote e entregar a cada chamador o seu usuário")
+    @SuppressWarnings("unchecked")
+    void shouldBatchLookupsWithinWindow() throws Exception {
+        // Arrange
+        UserBatchLoader loader = new UserBatchLoader(userRepository, new SimpleMeterRegistry(), true, 50, 100, 2);
+        when(userRepository.findUsersByIds(any())).thenReturn(Map.of("user-1", user("user-1"), "user-2", user("user-2")));
+
+        // Act
+        CompletableFuture<Optional<User>> primeiro = loader.load("user-1");
+        CompletableFuture<Optional<User>> segundo = loader.load("user-2");
+        CompletableFuture<Optional<User>> inexistente = loader.load("user-3");
+        CompletableFuture<Optional<User>> repetido = loader.load("user-1");
+
+        // Assert
+        assertEquals("user-1", primeiro.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        assertEquals("nome-user-2", segundo.get(5, TimeUnit.SECONDS).orElseThrow().getUsername());
+        assertTrue(inexistente.get(5, TimeUnit.SECONDS).isEmpty());
+        assertNotSame(primeiro.get().orElseThrow(), repetido.get(5, TimeUnit.SECONDS).orElseThrow());
+        ArgumentCaptor<Collection<String>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(userRepository, times(1)).findUsersByIds(ids.capture());
+        assertEquals(List.of("user-1", "user-2", "user-3"), List.copyOf(ids.getValue()));
+        loader.destroy();
+    }
+
+    @Test
+    @DisplayName("Deve buscar direto no repositório quando o carregador está desligado")
+    void shouldLoadDirectlyWhenDisabled() throws Exception {
+        // Arrange
+        UserBatchLoader loader = new UserBatchLoader(userRepository, new SimpleMeterRegistry(), false, 50, 100, 2);
+        when(userRepository.findById("user-1")).thenReturn(Optional.of(user("user-1")));
+
+        // Act
+        CompletableFuture<Optional<User>> carregado = loader.load("user-1");
+
+        // Assert
+        assertEquals("user-1", carregado.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        verify(userRepository, never()).findUsersByIds(any());
+        loader.destroy();
+    }
+}
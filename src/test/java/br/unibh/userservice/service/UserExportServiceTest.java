@@ -0,0 +1,101 @@
+package br.unibh.userservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.unibh.userservice.dto.UserResponseDTO;
+import br.unibh.userservice.entity.UserView;
+import br.unibh.userservice.exception.ServiceExceptions;
+import br.unibh.userservice.mapper.UserMapper;
+import br.unibh.userservice.repository.UserRepository;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+class UserExportServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserMapper userMapper = mock(UserMapper.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UserExportService exportService = new UserExportService(userRepository, userMapper, objectMapper,
+            "segredo-de-teste", 16, 500, 8);
+
+    private List<JsonNode> exportar(String resume) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(1, resume, out);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    @Test
+    @DisplayName("Deve terminar com uma linha de erro e o checkpoint da última página quando um segmento falha")
+    void shouldEndWithErrorLineWhenSegmentFails() throws Exception {
+        // Arrange
+        UserView user = new UserView();
+        user.setId("user-1");
+        when(userMapper.toResponseDto(any(UserView.class)))
+                .thenReturn(new UserResponseDTO("user-1", "ana", "ana@test.com", null, null, null));
+        when(userRepository.findSegmentPage(eq(0), eq(1), isNull(), anyInt()))
+                .thenReturn(Page.create(List.of(user), Map.of("id", AttributeValue.fromS("user-1"))));
+        when(userRepository.findSegmentPage(eq(0), eq(1), eq("user-1"), anyInt()))
+                .thenThrow(new IllegalStateException("DynamoDB indisponível"));
+
+        // Act
+        List<JsonNode> lines = exportar(null);
+
+        // Assert
+        assertEquals(3, lines.size());
+        assertEquals("user-1", lines.get(0).get("id").asText());
+        JsonNode erro = lines.get(2);
+        assertEquals("Falha ao ler o segmento 0. Retome a partir do checkpoint.", erro.get("error").asText());
+        assertEquals(lines.get(1).get("checkpoint").asText(), erro.get("checkpoint").asText());
+        assertEquals("user-1", exportService.decode(erro.get("checkpoint").asText())[0].lastKey());
+    }
+
+    @Test
+    @DisplayName("Deve recusar checkpoint alterado, sem assinatura ou de outro segredo")
+    void shouldRejectForgedCheckpoint() throws Exception {
+        // Arrange
+        UserExportService.SegmentCheckpoint[] posicoes = {new UserExportService.SegmentCheckpoint("user-1", false)};
+        String checkpoint = exportService.encode(posicoes);
+        String conteudo = checkpoint.substring(0, checkpoint.indexOf('.'));
+        String forjado = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "{\"segments\":[{\"lastKey\":\"user-9\",\"done\":false}]}".getBytes(StandardCharsets.UTF_8))
+                + checkpoint.substring(checkpoint.indexOf('.'));
+        UserExportService outroSegredo = new UserExportService(userRepository, userMapper, objectMapper,
+                "outro-segredo", 16, 500, 8);
+
+        // Act
+        UserExportService.SegmentCheckpoint[] lido = exportService.decode(checkpoint);
+
+        // Assert
+        assertEquals("user-1", lido[0].lastKey());
+        assertFalse(lido[0].done());
+        assertThrows(ServiceExceptions.InvalidCursorException.class, () -> exportService.decode(forjado));
+        assertThrows(ServiceExceptions.InvalidCursorException.class, () -> exportService.decode(conteudo));
+        assertThrows(ServiceExceptions.InvalidCursorException.class, () -> outroSegredo.decode(checkpoint));
+        assertThrows(ServiceExceptions.InvalidCursorException.class, () -> exportar(forjado));
+    }
+}
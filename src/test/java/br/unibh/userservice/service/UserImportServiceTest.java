@@ -0,0 +1,163 @@
+package br.unibh.userservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.unibh.userservice.config.BoundedPasswordEncoder;
+import br.unibh.userservice.dto.CreateUserRequestDTO;
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.exception.UserExceptions;
+import br.unibh.userservice.mapper.UserMapper;
+import br.unibh.userservice.repository.UserRepository;
+import jakarta.validation.Validation;
+
+class UserImportServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserMapper userMapper = mock(UserMapper.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UserImportService importService;
+
+    UserImportServiceTest() {
+        BoundedPasswordEncoder passwordEncoder = mock(BoundedPasswordEncoder.class);
+        when(passwordEncoder.getStrength()).thenReturn(4);
+        when(userMapper.toEntity(any(), any())).thenAnswer(invocation -> {
+            CreateUserRequestDTO request = invocation.getArgument(0);
+            User user = new User();
+            user.setId(UUID.randomUUID().toString());
+            user.setUsername(request.username().trim().toLowerCase());
+            user.setEmail(request.email().trim().toLowerCase());
+            user.setPassword(invocation.getArgument(1));
+            return user;
+        });
+        // Uma thread de hash: janelas de 8 linhas
+        importService = new UserImportService(userRepository, userMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(), objectMapper, passwordEncoder, 1);
+    }
+
+    @AfterEach
+    void shutdown() {
+        importService.destroy();
+    }
+
+    private List<JsonNode> importar(String body, boolean csv) throws Exception {
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        importService.importUsers(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), csv, report);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : report.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private static String ndjson(String username, String email) {
+        return "{\"username\":\"" + username + "\",\"email\":\"" + email + "\",\"password\":\"senha123\"}\n";
+    }
+
+    @Test
+    @DisplayName("Deve relatar linhas CSV com colunas faltando ou campos inválidos sem interromper a importação")
+    void shouldReportCsvErrorsPerLine() throws Exception {
+        // Arrange
+        String csv = "username,email,password\n"
+                + "ana,ana@test.com\n"
+                + "bia,email-invalido,senha123\n"
+                + "\"caio\",\"caio@test.com\",\"se,nha\"\n";
+
+        // Act
+        List<JsonNode> report = importar(csv, true);
+
+        // Assert
+        assertEquals(4, report.size());
+        assertEquals(2, report.get(0).get("line").asInt());
+        assertEquals("Esperadas 3 colunas, encontradas 2.", report.get(0).get("error").asText());
+        assertEquals("email: Email inválido.", report.get(1).get("error").asText());
+        assertEquals("CREATED", report.get(2).get("status").asText());
+        assertEquals("caio", report.get(2).get("username").asText());
+        assertEquals(1, report.get(3).get("created").asInt());
+        assertEquals(2, report.get(3).get("failed").asInt());
+    }
+
+    @Test
+    @DisplayName("Deve gravar o arquivo em janelas do tamanho configurado, sem juntar tudo numa só gravação")
+    @SuppressWarnings("unchecked")
+    void shouldWriteInWindows() throws Exception {
+        // Arrange
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            body.append(ndjson("user" + i, "user" + i + "@test.com"));
+        }
+        ArgumentCaptor<List<User>> lotes = ArgumentCaptor.forClass(List.class);
+
+        // Act
+        List<JsonNode> report = importar(body.toString(), false);
+
+        // Assert
+        verify(userRepository, times(3)).createAll(lotes.capture());
+        assertEquals(List.of(8, 8, 4), lotes.getAllValues().stream().map(List::size).toList());
+        assertEquals(20, report.get(20).get("created").asInt());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar username ou email repetido no próprio arquivo, mesmo em janelas diferentes")
+    void shouldRejectDuplicatesWithinFile() throws Exception {
+        // Arrange
+        StringBuilder body = new StringBuilder(ndjson("Dora", "dora@test.com"));
+        for (int i = 0; i < 8; i++) {
+            body.append(ndjson("outro" + i, "outro" + i + "@test.com"));
+        }
+        body.append(ndjson(" dora ", "nova@test.com"));
+        body.append(ndjson("eva", "DORA@test.com"));
+
+        // Act
+        List<JsonNode> report = importar(body.toString(), false);
+
+        // Assert
+        assertEquals("Username repetido no arquivo.", report.get(9).get("error").asText());
+        assertEquals("Email repetido no arquivo.", report.get(10).get("error").asText());
+        assertEquals(9, report.get(11).get("created").asInt());
+        assertEquals(2, report.get(11).get("failed").asInt());
+    }
+
+    @Test
+    @DisplayName("Deve relatar como erro só os usuários que o repositório não gravou")
+    void shouldReportPartialFailures() throws Exception {
+        // Arrange
+        when(userRepository.createAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            return Map.of(users.get(1).getId(), new UserExceptions.UserAlreadyExistsException("Username já cadastrado."));
+        });
+        String body = ndjson("fabio", "fabio@test.com") + ndjson("gil", "gil@test.com") + ndjson("hugo", "hugo@test.com");
+
+        // Act
+        List<JsonNode> report = importar(body, false);
+
+        // Assert
+        assertEquals("CREATED", report.get(0).get("status").asText());
+        assertEquals("ERROR", report.get(1).get("status").asText());
+        assertEquals("Username já cadastrado.", report.get(1).get("error").asText());
+        assertEquals("CREATED", report.get(2).get("status").asText());
+        assertEquals(2, report.get(3).get("created").asInt());
+        assertEquals(1, report.get(3).get("failed").asInt());
+    }
+}
@@ -0,0 +1,94 @@
+package br.unibh.userservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import br.unibh.userservice.config.HmacSigner;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
+import br.unibh.userservice.exception.ServiceExceptions;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+class UserPaginationTest {
+
+    private final UserPagination pagination = new UserPagination(null, new ObjectMapper(), "segredo-de-teste",
+            10, 100, false, 5000, 100);
+
+    @Test
+    @DisplayName("Deve devolver a chave completa do índice a partir do cursor")
+    void shouldRoundTripFullEvaluatedKey() {
+        // Arrange
+        String listagem = UserPagination.listingOf(UserState.BLOCKED, null);
+        Map<String, AttributeValue> chave = Map.of(
+                "id", AttributeValue.fromS("user-606"),
+                "status", AttributeValue.fromS("BLOCKED"),
+                "createdAt", AttributeValue.fromS("2024-01-01T12:00"));
+
+        // Act
+        String cursor = pagination.encode(listagem, chave);
+
+        // Assert
+        assertEquals(chave, pagination.decode(cursor, listagem));
+    }
+
+    @Test
+    @DisplayName("Não deve aceitar cursor alterado, de outro segredo ou de outra listagem")
+    void shouldRejectTamperedOrForeignCursor() {
+        // Arrange
+        String listagem = UserPagination.listingOf(null, UserRole.ADMIN);
+        String cursor = pagination.encode(listagem, Map.of("id", AttributeValue.fromS("user-606")));
+        UserPagination outroSegredo = new UserPagination(null, new ObjectMapper(), "outro-segredo", 10, 100, false, 5000, 100);
+        String alterado = cursor.substring(0, cursor.indexOf('.')) + "x" + cursor.substring(cursor.indexOf('.'));
+
+        // Act + Assert
+        assertThrows(ServiceExceptions.InvalidCursorException.class, () -> pagination.decode(alterado, listagem));
+        assertThrows(ServiceExceptions.InvalidCursorException.class, () -> outroSegredo.decode(cursor, listagem));
+        assertThrows(ServiceExceptions.InvalidCursorException.class,
+                () -> pagination.decode(cursor, UserPagination.listingOf(UserState.ACTIVE, UserRole.ADMIN)));
+    }
+
+    @Test
+    @DisplayName("Deve limitar o tamanho de página ao máximo configurado")
+    void shouldCapPageSize() {
+        assertEquals(100, pagination.pageSize(5000));
+        assertEquals(10, pagination.pageSize(0));
+        assertEquals(25, pagination.pageSize(25));
+    }
+
+    @Test
+    @DisplayName("Deve recusar cursor bem assinado mas com estrutura inesperada, e cursor assinado com o segredo cru")
+    void shouldRejectMalformedOrRawSecretCursor() throws Exception {
+        // Arrange
+        String listagem = UserPagination.TABLE_SCAN;
+        HmacSigner signer = HmacSigner.forPurpose("segredo-de-teste", "pagination-cursor");
+        Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+        byte[] semChave = "{\"listing\":\"table\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] chaveNumerica = "{\"listing\":\"table\",\"key\":{\"id\":42}}".getBytes(StandardCharsets.UTF_8);
+        byte[] valido = "{\"listing\":\"table\",\"key\":{\"id\":\"user-1\"}}".getBytes(StandardCharsets.UTF_8);
+        Mac segredoCru = Mac.getInstance("HmacSHA256");
+        segredoCru.init(new SecretKeySpec("segredo-de-teste".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+
+        // Act
+        String cursorSemChave = base64.encodeToString(semChave) + "." + base64.encodeToString(signer.sign(semChave));
+        String cursorChaveNumerica = base64.encodeToString(chaveNumerica) + "." + base64.encodeToString(signer.sign(chaveNumerica));
+        String cursorSegredoCru = base64.encodeToString(valido) + "." + base64.encodeToString(segredoCru.doFinal(valido));
+
+        // Assert
+        assertThrows(ServiceExceptions.InvalidCursorException.class, () -> pagination.decode(cursorSemChave, listagem));
+        assertThrows(ServiceExceptions.InvalidCursorException.class, () -> pagination.decode(cursorChaveNumerica, listagem));
+        assertThrows(ServiceExceptions.InvalidCursorException.class, () -> pagination.decode(cursorSegredoCru, listagem));
+        assertThrows(ServiceExceptions.InvalidCursorException.class, () -> pagination.decode("sem-separador", listagem));
+        assertThrows(ServiceExceptions.InvalidCursorException.class, () -> pagination.decode(".", listagem));
+    }
+}
@@ -0,0 +1,77 @@
+package br.unibh.userservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import br.unibh.userservice.config.LoginThrottle;
+import br.unibh.userservice.config.SecurityFilter;
+import br.unibh.userservice.config.TokenRevocationRegistry;
+import br.unibh.userservice.config.TokenService;
+import br.unibh.userservice.entity.User;
+import br.unibh.userservice.entity.UserRole;
+import br.unibh.userservice.entity.UserState;
+import br.unibh.userservice.mapper.UserMapper;
+import br.unibh.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+class UserServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserQueryService userQueryService = mock(UserQueryService.class);
+    private final UserIdentityMap identityMap = new UserIdentityMap();
+    private final TokenService tokenService = new TokenService("segredo-de-teste", 100, new SimpleMeterRegistry());
+    private final TokenRevocationRegistry revocationRegistry = new TokenRevocationRegistry(mock(DynamoDbClient.class), "user", true);
+    private final UserService userService = new UserService(userRepository, userQueryService, mock(UserPagination.class),
+            mock(UserMapper.class), tokenService, mock(AuthenticationManager.class), revocationRegistry, identityMap,
+            mock(PasswordEncoder.class), mock(LoginThrottle.class));
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Deve recusar, no modo stateless, o token emitido antes de o usuário ser deletado")
+    @SuppressWarnings("unchecked")
+    void shouldRejectTokenIssuedBeforeDeletion() throws Exception {
+        // Arrange
+        User user = new User();
+        user.setId("user-42");
+        user.setUsername("ada");
+        user.setRole(UserRole.USER);
+        user.setStatus(UserState.ACTIVE);
+        user.setTokenVersion(2L);
+        String token = tokenService.generateToken(user);
+        when(userQueryService.findUserOrThrow("user-42")).thenReturn(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+        SecurityFilter filter = new SecurityFilter(tokenService, userQueryService, revocationRegistry, identityMap, true,
+                mock(ObjectProvider.class));
+
+        // Act
+        userService.deleteUser("user-42");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/user-42");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+
+        // Assert
+        verify(userRepository).delete(user);
+        assertEquals(401, response.getStatus());
+    }
+}